@@ -0,0 +1,66 @@
+#!/usr/bin/env bash
+# Measures time-to-first-request and resident memory for the default and fast-startup builds.
+#
+# Usage: scripts/startup-benchmark.sh default|fast-startup [runs]
+#   Build first:  mvn -B package -DskipTests                   (default)
+#                 mvn -B -Pfast-startup package -DskipTests     (fast-startup; the training run needs MongoDB)
+# MongoDB must be reachable at the configured URI. Each run starts the app on port 8090 and polls
+# /actuator/health until it answers.
+set -euo pipefail
+
+MODE="${1:?usage: $0 default|fast-startup [runs]}"
+RUNS="${2:-5}"
+PORT=8090
+JAR_NAME="ecommerce-0.0.1-SNAPSHOT.jar"
+TARGET="$(cd "$(dirname "$0")/.." && pwd)/target"
+
+now_ms() {
+  date +%s%3N
+}
+
+measure() {
+  local mode="$1"
+  shift
+  local total_ms=0 total_rss=0
+
+  for run in $(seq 1 "$RUNS"); do
+    local start
+    start=$(now_ms)
+    "$@" --server.port="$PORT" > /dev/null 2>&1 &
+    local pid=$!
+
+    until curl -sf "http://localhost:$PORT/actuator/health" > /dev/null; do
+      if ! kill -0 "$pid" 2> /dev/null; then
+        echo "$mode: application exited during startup" >&2
+        exit 1
+      fi
+      sleep 0.05
+    done
+
+    local elapsed=$(( $(now_ms) - start ))
+    local rss_kb
+    rss_kb=$(ps -o rss= -p "$pid" | tr -d ' ')
+    kill "$pid"
+    wait "$pid" 2> /dev/null || true
+
+    echo "$mode run $run: first request after ${elapsed} ms, RSS $(( rss_kb / 1024 )) MB"
+    total_ms=$(( total_ms + elapsed ))
+    total_rss=$(( total_rss + rss_kb ))
+  done
+
+  echo "$mode average: first request after $(( total_ms / RUNS )) ms, RSS $(( total_rss / RUNS / 1024 )) MB"
+}
+
+case "$MODE" in
+  default)
+    measure "default" java -jar "$TARGET/$JAR_NAME"
+    ;;
+  fast-startup)
+    measure "fast-startup" java -XX:AOTCache="$TARGET/extracted/app.aot" -Dspring.aot.enabled=true \
+      -jar "$TARGET/extracted/$JAR_NAME" --spring.profiles.active=fast-startup
+    ;;
+  *)
+    echo "Unknown mode: $MODE" >&2
+    exit 1
+    ;;
+esac
@@ -0,0 +1,107 @@
+package com.ecommerce.ecommerce.cart;
+
+import com.ecommerce.ecommerce.EcommerceApplication;
+import com.ecommerce.ecommerce.dto.AddToCartRequest;
+import com.ecommerce.ecommerce.model.Cart;
+import com.ecommerce.ecommerce.model.CartItem;
+import com.ecommerce.ecommerce.model.Product;
+import com.ecommerce.ecommerce.service.CartService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+// Latency of the three cart operations through CartService against a local Mongo: adding a line (one
+// guarded upsert), reading a cart (one document by _id) and clearing it (one delete by _id). Uses its own
+// database, which is emptied before the run.
+// Run with: mvn -Pbenchmark test-compile exec:exec -Djmh.include=CartBenchmark
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CartBenchmark {
+
+    private static final int USERS = 1_000;
+    private static final int PRODUCTS = 20;
+
+    private ConfigurableApplicationContext context;
+    private CartService cartService;
+    private String[] productIds;
+
+    @Setup
+    public void setUp() {
+        context = new SpringApplicationBuilder(EcommerceApplication.class)
+                .web(WebApplicationType.NONE)
+                .properties(
+                        "spring.data.mongodb.uri=mongodb://localhost:27017/ecommerce_cart_benchmark",
+                        "scheduler.enabled=false",
+                        "cart.migration.enabled=false")
+                .run();
+        cartService = context.getBean(CartService.class);
+
+        MongoTemplate mongoTemplate = context.getBean(MongoTemplate.class);
+        mongoTemplate.remove(new Query(), Cart.class);
+        mongoTemplate.remove(new Query(), Product.class);
+        productIds = new String[PRODUCTS];
+        for (int p = 0; p < PRODUCTS; p++) {
+            Product product = new Product();
+            product.setName("Benchmark product " + p);
+            product.setPrice(100.0 + p);
+            product.setStock(Integer.MAX_VALUE / 2);
+            productIds[p] = mongoTemplate.insert(product).getId();
+        }
+        // Every user starts with a few lines so reads return a realistic cart
+        for (int user = 0; user < USERS; user++) {
+            for (int line = 0; line < 5; line++) {
+                cartService.addToCart(new AddToCartRequest(userId(user), productIds[(user + line) % PRODUCTS], 1));
+            }
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public CartItem add() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        return cartService.addToCart(new AddToCartRequest(
+                userId(random.nextInt(USERS)), productIds[random.nextInt(PRODUCTS)], 1));
+    }
+
+    @Benchmark
+    public List<CartItem> read() {
+        return cartService.getCartItemsByUserId(userId(ThreadLocalRandom.current().nextInt(USERS)));
+    }
+
+    // Clearing an empty cart is a no-op delete, so each clear follows the add that recreates the cart
+    @Benchmark
+    public void addThenClear() {
+        String userId = "checkout-" + Thread.currentThread().threadId();
+        cartService.addToCart(new AddToCartRequest(userId, productIds[0], 1));
+        cartService.clearCart(userId);
+    }
+
+    private static String userId(int user) {
+        return "user-" + user;
+    }
+}
@@ -0,0 +1,74 @@
+package com.ecommerce.ecommerce.catalog;
+
+import com.ecommerce.ecommerce.model.Product;
+import com.ecommerce.ecommerce.service.CacheInvalidationBus;
+import com.ecommerce.ecommerce.service.ProductJsonCache;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// Time to produce the JSON body of one catalog response: Jackson encoding the product list on every
+// request, next to ProductJsonCache stitching an ad-hoc list from cached per-product bytes and reusing
+// a named snapshot whole. Products keep their versions, so the cache runs warm as it does between writes.
+// Run with: mvn -Pbenchmark test-compile exec:exec
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class ProductJsonCacheBenchmark {
+
+    @Param({"20", "200"})
+    private int products;
+
+    private JsonMapper jsonMapper;
+    private ProductJsonCache cache;
+    private List<Product> catalog;
+
+    @Setup
+    public void setUp() {
+        jsonMapper = JsonMapper.builder().build();
+        cache = new ProductJsonCache(jsonMapper, new CacheInvalidationBus());
+
+        Random random = new Random(42);
+        catalog = new ArrayList<>(products);
+        for (int i = 0; i < products; i++) {
+            int stock = random.nextInt(500);
+            catalog.add(new Product("product-" + i, "Product " + i, "Description of product " + i,
+                    10 + random.nextInt(5_000) + random.nextInt(100) / 100.0, stock,
+                    Map.of("warehouse-1", stock), (long) random.nextInt(10)));
+        }
+        cache.list("catalog", catalog);
+    }
+
+    @Benchmark
+    public byte[] encodePerRequest() {
+        return jsonMapper.writeValueAsBytes(catalog);
+    }
+
+    @Benchmark
+    public byte[] cachedList() {
+        return cache.list(catalog).getIdentity();
+    }
+
+    @Benchmark
+    public byte[] cachedSnapshot() {
+        return cache.list("catalog", catalog).getIdentity();
+    }
+}
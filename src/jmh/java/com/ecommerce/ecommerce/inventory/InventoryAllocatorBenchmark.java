@@ -0,0 +1,81 @@
+package com.ecommerce.ecommerce.inventory;
+
+import com.ecommerce.ecommerce.model.OrderItem;
+import com.ecommerce.ecommerce.model.Product;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// Time to allocate one order. The target is well under a millisecond for 100 lines. Stock is spread
+// unevenly: each product is carried by about a third of the warehouses, so most orders need several
+// shipments and some lines have to be split.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class InventoryAllocatorBenchmark {
+
+    @Param({"5", "20", "50"})
+    private int warehouses;
+
+    @Param({"10", "100"})
+    private int lines;
+
+    private List<OrderItem> items;
+    private Map<String, Product> products;
+    private List<String> warehouseIds;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        warehouseIds = new ArrayList<>();
+        for (int w = 0; w < warehouses; w++) {
+            warehouseIds.add("wh-" + w);
+        }
+
+        items = new ArrayList<>();
+        products = new HashMap<>();
+        for (int line = 0; line < lines; line++) {
+            String productId = "product-" + line;
+            Map<String, Integer> stockByWarehouse = new LinkedHashMap<>();
+            int total = 0;
+            for (String warehouseId : warehouseIds) {
+                if (random.nextInt(3) == 0) {
+                    int stock = random.nextInt(10);
+                    stockByWarehouse.put(warehouseId, stock);
+                    total += stock;
+                }
+            }
+            // Guarantee the line can be filled somewhere
+            String fallback = warehouseIds.get(random.nextInt(warehouses));
+            stockByWarehouse.merge(fallback, 5, Integer::sum);
+            total += 5;
+
+            products.put(productId, new Product(productId, "Product " + line, null, 100.0, total, stockByWarehouse, 1L));
+            items.add(new OrderItem(productId, "Product " + line, 1 + random.nextInt(5), 100.0));
+        }
+    }
+
+    @Benchmark
+    public Allocation allocate() {
+        return InventoryAllocator.allocate(items, products, warehouseIds);
+    }
+}
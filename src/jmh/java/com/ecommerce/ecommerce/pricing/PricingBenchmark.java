@@ -0,0 +1,83 @@
+package com.ecommerce.ecommerce.pricing;
+
+import com.ecommerce.ecommerce.model.OrderItem;
+import com.ecommerce.ecommerce.service.PricingService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// Time to price one cart through the full pipeline (percent-off and bulk promotions, a coupon and tax),
+// next to the boxed Double sum OrderService used before. Add -prof gc to the JMH arguments to confirm
+// the pipeline allocates nothing per cart after warm-up.
+// Run with: mvn -Pbenchmark test-compile exec:exec
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class PricingBenchmark {
+
+    @Param({"10", "100"})
+    private int lines;
+
+    private PricingService pricingService;
+    private long[] unitPaise;
+    private int[] quantities;
+    private List<OrderItem> items;
+
+    @Setup
+    public void setUp() {
+        StaticListableBeanFactory rules = new StaticListableBeanFactory();
+        rules.addBean("tax", new TaxRule(1_800));
+        rules.addBean("coupon", new CouponRule("SAVE100", Money.toPaise(100.0)));
+        rules.addBean("percentOff", new PercentOffPromotion(500, Money.toPaise(1_000.0)));
+        rules.addBean("bulk", new BulkLinePromotion(3, 1_000));
+        pricingService = new PricingService(rules.getBeanProvider(PriceRule.class));
+
+        Random random = new Random(42);
+        unitPaise = new long[lines];
+        quantities = new int[lines];
+        items = new ArrayList<>(lines);
+        for (int line = 0; line < lines; line++) {
+            double price = 10 + random.nextInt(5_000) + random.nextInt(100) / 100.0;
+            int quantity = 1 + random.nextInt(5);
+            unitPaise[line] = Money.toPaise(price);
+            quantities[line] = quantity;
+            items.add(new OrderItem("product-" + line, "Product " + line, quantity, price));
+        }
+    }
+
+    @Benchmark
+    public long pipeline() {
+        PricingContext context = pricingService.newContext();
+        context.setCouponCode("SAVE100");
+        for (int line = 0; line < lines; line++) {
+            context.addLine(unitPaise[line], quantities[line]);
+        }
+        return pricingService.price(context).totalPaise();
+    }
+
+    @Benchmark
+    public Double boxedDoubles() {
+        Double total = 0.0;
+        for (OrderItem item : items) {
+            total += item.getPrice() * item.getQuantity();
+        }
+        return total;
+    }
+}
@@ -0,0 +1,95 @@
+package com.ecommerce.ecommerce.signature;
+
+import com.razorpay.Utils;
+import org.json.JSONObject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.HexFormat;
+import java.util.concurrent.TimeUnit;
+
+// Verifications per second on one thread, i.e. per core. Compares the pooled verifier with a Mac built
+// per call (what the Razorpay SDK does) on webhook-sized bodies, and with the SDK's own check.
+// Run with: mvn -Pbenchmark test-compile exec:exec
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(1)
+@State(Scope.Thread)
+public class SignatureVerificationBenchmark {
+
+    private static final String SECRET = "benchmark-webhook-secret";
+
+    @Param({"512", "4096"})
+    private int bodyBytes;
+
+    private HmacSha256Verifier verifier;
+    private byte[] body;
+    private String signature;
+    private String paymentMessage;
+    private String paymentSignature;
+    private JSONObject paymentOptions;
+
+    @Setup
+    public void setUp() throws Exception {
+        verifier = new HmacSha256Verifier(SECRET);
+
+        StringBuilder json = new StringBuilder("{\"event\":\"payment.captured\",\"payload\":\"");
+        while (json.length() < bodyBytes - 2) {
+            json.append('x');
+        }
+        body = json.append("\"}").toString().getBytes(StandardCharsets.UTF_8);
+        signature = sign(body);
+
+        paymentMessage = "order_Q1w2e3r4t5y6u7|pay_Q1w2e3r4t5y6u8";
+        paymentSignature = sign(paymentMessage.getBytes(StandardCharsets.UTF_8));
+        paymentOptions = new JSONObject()
+                .put("razorpay_order_id", "order_Q1w2e3r4t5y6u7")
+                .put("razorpay_payment_id", "pay_Q1w2e3r4t5y6u8")
+                .put("razorpay_signature", paymentSignature);
+    }
+
+    @Benchmark
+    public boolean pooledMac() {
+        return verifier.verify(body, signature);
+    }
+
+    @Benchmark
+    public boolean macPerCall() throws Exception {
+        Mac mac = Mac.getInstance("HmacSHA256");
+        mac.init(new SecretKeySpec(SECRET.getBytes(StandardCharsets.UTF_8), "HmacSHA256"));
+        return MessageDigest.isEqual(mac.doFinal(body), HexFormat.of().parseHex(signature));
+    }
+
+    @Benchmark
+    public boolean pooledPaymentSignature() {
+        return verifier.verify(paymentMessage, paymentSignature);
+    }
+
+    @Benchmark
+    public boolean razorpaySdkPaymentSignature() throws Exception {
+        return Utils.verifyPaymentSignature(paymentOptions, SECRET);
+    }
+
+    private static String sign(byte[] message) throws Exception {
+        Mac mac = Mac.getInstance("HmacSHA256");
+        mac.init(new SecretKeySpec(SECRET.getBytes(StandardCharsets.UTF_8), "HmacSHA256"));
+        return HexFormat.of().formatHex(mac.doFinal(message));
+    }
+}
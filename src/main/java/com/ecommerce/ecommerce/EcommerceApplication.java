@@ -2,8 +2,13 @@ package com.ecommerce.ecommerce;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.data.mongodb.autoconfigure.DataMongoReactiveAutoConfiguration;
+import org.springframework.boot.data.mongodb.autoconfigure.DataMongoReactiveRepositoriesAutoConfiguration;
+import org.springframework.boot.mongodb.autoconfigure.MongoReactiveAutoConfiguration;
 
-@SpringBootApplication
+// Reactive Mongo is wired by ReactiveMongoConfig, and only when reactive.read-path.enabled is true
+@SpringBootApplication(exclude = {MongoReactiveAutoConfiguration.class, DataMongoReactiveAutoConfiguration.class,
+		DataMongoReactiveRepositoriesAutoConfiguration.class})
 public class EcommerceApplication {
 
 	public static void main(String[] args) {
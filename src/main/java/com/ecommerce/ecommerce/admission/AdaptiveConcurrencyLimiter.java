@@ -0,0 +1,79 @@
+package com.ecommerce.ecommerce.admission;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+// AIMD concurrency limit driven by observed latency. Each fast completion contributes to growing the
+// limit by one per window, while a completion slower than the target shrinks it multiplicatively, so
+// the limit settles just below the point where queueing starts. The limit is cut at most once per round
+// trip: slow requests that started before the last cut ran under the old limit and are not counted again.
+// Any completion slower than the target counts as a drop sample whatever its outcome, since timeouts and
+// slow errors are what overload usually looks like; only fast failures are left out, as they say nothing
+// about capacity.
+public class AdaptiveConcurrencyLimiter {
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final long targetLatencyNanos;
+    private final double backoffRatio;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private volatile int limit;
+    private int successesSinceIncrease;
+    private long lastDecreaseNanos = System.nanoTime();
+
+    public AdaptiveConcurrencyLimiter(int initialLimit, int minLimit, int maxLimit,
+                                      long targetLatencyNanos, double backoffRatio) {
+        this.limit = initialLimit;
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.targetLatencyNanos = targetLatencyNanos;
+        this.backoffRatio = backoffRatio;
+    }
+
+    public boolean tryAcquire() {
+        while (true) {
+            int current = inFlight.get();
+            if (current >= limit) {
+                return false;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    // startNanos is when the slot was acquired; succeeded is false when the request failed
+    public void release(long startNanos, boolean succeeded) {
+        inFlight.decrementAndGet();
+        long endNanos = System.nanoTime();
+        if (succeeded || endNanos - startNanos > targetLatencyNanos) {
+            onSample(startNanos, endNanos);
+        }
+    }
+
+    // Frees a slot that never ran a request, e.g. one turned away by the per-user rate limit
+    public void releaseUnsampled() {
+        inFlight.decrementAndGet();
+    }
+
+    private synchronized void onSample(long startNanos, long endNanos) {
+        if (endNanos - startNanos > targetLatencyNanos) {
+            if (startNanos - lastDecreaseNanos > 0) {
+                limit = Math.max(minLimit, (int) (limit * backoffRatio));
+                lastDecreaseNanos = endNanos;
+            }
+            successesSinceIncrease = 0;
+        } else if (++successesSinceIncrease >= limit) {
+            limit = Math.min(maxLimit, limit + 1);
+            successesSinceIncrease = 0;
+        }
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+}
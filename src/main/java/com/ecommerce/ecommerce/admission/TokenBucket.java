@@ -0,0 +1,50 @@
+package com.ecommerce.ecommerce.admission;
+
+// Classic token bucket refilled lazily from the monotonic clock on each acquire
+public class TokenBucket {
+
+    private final double capacity;
+    private final double refillPerNano;
+
+    private double tokens;
+    private long lastRefillNanos;
+    private volatile long lastUsedNanos;
+
+    public TokenBucket(int capacity, double refillPerSecond) {
+        this.capacity = capacity;
+        this.refillPerNano = refillPerSecond / 1_000_000_000d;
+        this.tokens = capacity;
+        this.lastRefillNanos = System.nanoTime();
+        this.lastUsedNanos = lastRefillNanos;
+    }
+
+    public synchronized boolean tryAcquire() {
+        long now = System.nanoTime();
+        tokens = Math.min(capacity, tokens + (now - lastRefillNanos) * refillPerNano);
+        lastRefillNanos = now;
+        lastUsedNanos = now;
+
+        if (tokens >= 1) {
+            tokens -= 1;
+            return true;
+        }
+        return false;
+    }
+
+    // Blocks until a token is available; for background work that should be paced rather than rejected
+    public void acquire() throws InterruptedException {
+        while (!tryAcquire()) {
+            Thread.sleep(Math.max(1, (long) Math.ceil(1 / refillPerNano / 1_000_000d / 4)));
+        }
+    }
+
+    // Seconds until the next token is available, rounded up for Retry-After
+    public synchronized long secondsUntilNextToken() {
+        double missing = 1 - tokens;
+        return missing <= 0 ? 0 : (long) Math.ceil(missing / refillPerNano / 1_000_000_000d);
+    }
+
+    public long getLastUsedNanos() {
+        return lastUsedNanos;
+    }
+}
@@ -0,0 +1,154 @@
+package com.ecommerce.ecommerce.batch;
+
+import com.ecommerce.ecommerce.exception.OverloadedException;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+// Collects writes submitted by concurrent callers and hands them to a BatchWriter in groups. A group
+// closes when it reaches maxBatch or when the window since its first write has passed. The writer must
+// complete every Pending it is given; callers block on their own result only, for at most submitTimeout.
+// A caller that gave up has its Pending failed first, so the writer's complete() returns false and the
+// writer knows to undo that write.
+@Slf4j
+public class GroupCommitBatcher<T, R> {
+
+    public interface BatchWriter<T, R> {
+        void write(List<Pending<T, R>> batch);
+    }
+
+    @Getter
+    @RequiredArgsConstructor
+    public static class Pending<T, R> {
+        private final T item;
+        private final CompletableFuture<R> result = new CompletableFuture<>();
+    }
+
+    private final String name;
+    private final int maxBatch;
+    private final long windowNanos;
+    private final BlockingQueue<Pending<T, R>> queue;
+    private final BatchWriter<T, R> writer;
+    private final long submitTimeoutNanos;
+
+    private Thread worker;
+    private volatile boolean running;
+
+    public GroupCommitBatcher(String name, int maxBatch, long windowNanos, int queueCapacity, long submitTimeoutNanos,
+                              BatchWriter<T, R> writer) {
+        this.name = name;
+        this.maxBatch = maxBatch;
+        this.windowNanos = windowNanos;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.submitTimeoutNanos = submitTimeoutNanos;
+        this.writer = writer;
+    }
+
+    public void start() {
+        running = true;
+        worker = new Thread(this::run, "group-commit-" + name);
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    public void stop() {
+        running = false;
+        if (worker != null) {
+            worker.interrupt();
+        }
+        Pending<T, R> pending;
+        while ((pending = queue.poll()) != null) {
+            pending.getResult().completeExceptionally(new IllegalStateException("Batcher " + name + " is shutting down"));
+        }
+    }
+
+    public R submit(T item) {
+        Pending<T, R> pending = new Pending<>(item);
+        if (!running || !queue.offer(pending)) {
+            throw new OverloadedException("Write queue " + name + " is full, please retry", 1);
+        }
+
+        try {
+            return pending.getResult().get(submitTimeoutNanos, TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            if (pending.getResult().completeExceptionally(e)) {
+                throw new OverloadedException("Write queue " + name + " did not answer in time, please retry", 1);
+            }
+            return pending.getResult().join(); // Completed between the timeout and our attempt to fail it
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new CompletionException(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            pending.getResult().completeExceptionally(e);
+            throw new IllegalStateException("Interrupted while waiting for " + name, e);
+        }
+    }
+
+    private void run() {
+        List<Pending<T, R>> batch = new ArrayList<>(maxBatch);
+
+        while (running) {
+            try {
+                Pending<T, R> first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+
+                long deadline = System.nanoTime() + windowNanos;
+                while (batch.size() < maxBatch) {
+                    long remaining = deadline - System.nanoTime();
+                    Pending<T, R> next = remaining > 0 ? queue.poll(remaining, TimeUnit.NANOSECONDS) : queue.poll();
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+
+                flush(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            } catch (Throwable t) {
+                // Keep the worker alive whatever happens; a dead worker would leave every later caller waiting
+                log.error("Group commit {} worker failed", name, t);
+                fail(batch, t);
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void flush(List<Pending<T, R>> batch) {
+        try {
+            writer.write(batch);
+        } catch (Throwable t) {
+            log.error("Group commit {} failed for a batch of {}", name, batch.size(), t);
+            fail(batch, t);
+        }
+
+        // Guard against a writer that forgot someone
+        fail(batch, new IllegalStateException("Write was not completed by " + name));
+    }
+
+    private static <T, R> void fail(List<Pending<T, R>> batch, Throwable cause) {
+        RuntimeException failure = cause instanceof RuntimeException runtime ? runtime
+                : new IllegalStateException("Group commit failed: " + cause, cause);
+        for (Pending<T, R> pending : batch) {
+            pending.getResult().completeExceptionally(failure);
+        }
+    }
+}
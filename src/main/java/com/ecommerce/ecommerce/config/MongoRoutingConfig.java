@@ -0,0 +1,37 @@
+package com.ecommerce.ecommerce.config;
+
+import com.ecommerce.ecommerce.model.Order;
+import com.ecommerce.ecommerce.model.Payment;
+import com.ecommerce.ecommerce.model.Product;
+import com.mongodb.WriteConcern;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.mongodb.core.MongoTemplate;
+
+import java.util.Set;
+
+@Configuration
+@EnableConfigurationProperties(ReadRoutingProperties.class)
+public class MongoRoutingConfig {
+
+    // Stock, order and payment writes must survive a primary failover
+    private static final Set<Class<?>> MAJORITY_WRITE_ENTITIES = Set.of(Product.class, Order.class, Payment.class);
+
+    @Bean
+    public static BeanPostProcessor majorityWriteConcernPostProcessor() {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof MongoTemplate mongoTemplate) {
+                    mongoTemplate.setWriteConcernResolver(action ->
+                            MAJORITY_WRITE_ENTITIES.contains(action.getEntityType())
+                                    ? WriteConcern.MAJORITY
+                                    : action.getDefaultWriteConcern());
+                }
+                return bean;
+            }
+        };
+    }
+}
@@ -0,0 +1,28 @@
+package com.ecommerce.ecommerce.config;
+
+import lombok.Getter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+
+// Stable name for this instance, used wherever per-node state is stored in Mongo
+@Component
+@Getter
+public class NodeIdentity {
+
+    private final String nodeId;
+
+    public NodeIdentity(@Value("${app.node-id:}") String configuredNodeId) {
+        this.nodeId = configuredNodeId.isBlank() ? hostName() : configuredNodeId;
+    }
+
+    private static String hostName() {
+        try {
+            return InetAddress.getLocalHost().getHostName();
+        } catch (UnknownHostException e) {
+            return "unknown-host";
+        }
+    }
+}
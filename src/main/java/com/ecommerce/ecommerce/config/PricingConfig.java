@@ -0,0 +1,46 @@
+package com.ecommerce.ecommerce.config;
+
+import com.ecommerce.ecommerce.pricing.BulkLinePromotion;
+import com.ecommerce.ecommerce.pricing.CouponRule;
+import com.ecommerce.ecommerce.pricing.Money;
+import com.ecommerce.ecommerce.pricing.PercentOffPromotion;
+import com.ecommerce.ecommerce.pricing.PriceRule;
+import com.ecommerce.ecommerce.pricing.TaxRule;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class PricingConfig {
+
+    @Bean
+    @ConditionalOnProperty(name = "pricing.promotion.percent-off-bps")
+    public PriceRule percentOffPromotion(
+            @Value("${pricing.promotion.percent-off-bps}") int discountBps,
+            @Value("${pricing.promotion.min-subtotal:0}") double minSubtotal) {
+        return new PercentOffPromotion(discountBps, Money.toPaise(minSubtotal));
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "pricing.promotion.bulk-min-quantity")
+    public PriceRule bulkLinePromotion(
+            @Value("${pricing.promotion.bulk-min-quantity}") int minQuantity,
+            @Value("${pricing.promotion.bulk-discount-bps}") int discountBps) {
+        return new BulkLinePromotion(minQuantity, discountBps);
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "pricing.coupon.code")
+    public PriceRule couponRule(
+            @Value("${pricing.coupon.code}") String code,
+            @Value("${pricing.coupon.amount-off}") double amountOff) {
+        return new CouponRule(code, Money.toPaise(amountOff));
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "pricing.tax.rate-bps")
+    public PriceRule taxRule(@Value("${pricing.tax.rate-bps}") int rateBps) {
+        return new TaxRule(rateBps);
+    }
+}
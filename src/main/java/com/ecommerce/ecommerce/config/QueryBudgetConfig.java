@@ -0,0 +1,15 @@
+package com.ecommerce.ecommerce.config;
+
+import com.ecommerce.ecommerce.querybudget.QueryStatsCommandListener;
+import org.springframework.boot.mongodb.autoconfigure.MongoClientSettingsBuilderCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class QueryBudgetConfig {
+
+    @Bean
+    public MongoClientSettingsBuilderCustomizer queryStatsCommandListener() {
+        return settings -> settings.addCommandListener(new QueryStatsCommandListener());
+    }
+}
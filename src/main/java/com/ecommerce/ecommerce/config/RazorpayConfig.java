@@ -6,6 +6,7 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Lazy;
 
 @Configuration
 @Slf4j
@@ -18,6 +19,7 @@ public class RazorpayConfig {
     private String razorpayKeySecret;
 
     @Bean
+    @Lazy
     public RazorpayClient razorpayClient() {
         try {
             log.info("Initializing Razorpay client with key ID: {}", razorpayKeyId);
@@ -0,0 +1,48 @@
+package com.ecommerce.ecommerce.config;
+
+import com.ecommerce.ecommerce.repository.ReactiveOrderRepository;
+import com.mongodb.ConnectionString;
+import com.mongodb.MongoClientSettings;
+import com.mongodb.reactivestreams.client.MongoClient;
+import com.mongodb.reactivestreams.client.MongoClients;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.mongodb.autoconfigure.MongoClientSettingsBuilderCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.ComponentScan;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.FilterType;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.SimpleReactiveMongoDatabaseFactory;
+import org.springframework.data.mongodb.core.convert.MongoConverter;
+import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
+import org.springframework.data.mongodb.repository.config.EnableReactiveMongoRepositories;
+
+// The reactive driver, template and repositories exist only with the reactive read path on. Boot's reactive
+// Mongo auto-configuration is excluded in EcommerceApplication, so a disabled path opens no second
+// connection pool. The client takes the same URI and settings customizers as the blocking one.
+@Configuration
+@ConditionalOnProperty(name = "reactive.read-path.enabled", havingValue = "true")
+@EnableReactiveMongoRepositories(basePackageClasses = ReactiveOrderRepository.class,
+        includeFilters = @ComponentScan.Filter(type = FilterType.ASSIGNABLE_TYPE, classes = ReactiveMongoRepository.class))
+public class ReactiveMongoConfig {
+
+    @Bean(destroyMethod = "close")
+    public MongoClient reactiveMongoClient(@Value("${spring.data.mongodb.uri}") String uri,
+                                           ObjectProvider<MongoClientSettingsBuilderCustomizer> customizers) {
+        MongoClientSettings.Builder settings = MongoClientSettings.builder()
+                .applyConnectionString(new ConnectionString(uri));
+        customizers.orderedStream().forEach(customizer -> customizer.customize(settings));
+        return MongoClients.create(settings.build());
+    }
+
+    @Bean
+    public ReactiveMongoTemplate reactiveMongoTemplate(MongoClient reactiveMongoClient,
+                                                       @Value("${spring.data.mongodb.uri}") String uri,
+                                                       MongoConverter mongoConverter) {
+        return new ReactiveMongoTemplate(
+                new SimpleReactiveMongoDatabaseFactory(reactiveMongoClient, new ConnectionString(uri).getDatabase()),
+                mongoConverter);
+    }
+}
@@ -0,0 +1,23 @@
+package com.ecommerce.ecommerce.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+@Data
+@ConfigurationProperties(prefix = "mongodb.routing")
+public class ReadRoutingProperties {
+
+    // Keyed by route name, one route per repository read (e.g. product-find-all)
+    private Map<String, Route> routes = new HashMap<>();
+
+    @Data
+    public static class Route {
+        private String readPreference = "primary";
+        private Duration maxStaleness;
+        private String readConcern;
+    }
+}
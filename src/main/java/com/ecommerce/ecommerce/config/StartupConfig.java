@@ -0,0 +1,24 @@
+package com.ecommerce.ecommerce.config;
+
+import com.ecommerce.ecommerce.service.AdmissionControlService;
+import com.ecommerce.ecommerce.service.OrderWriteBatcher;
+import com.ecommerce.ecommerce.service.PricingService;
+import org.springframework.boot.LazyInitializationExcludeFilter;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.Set;
+
+@Configuration
+public class StartupConfig {
+
+    // With spring.main.lazy-initialization on (fast-startup profile) these stay eager, so the first
+    // checkout does not pay for building the pricing pipeline or the write batchers
+    private static final Set<Class<?>> CHECKOUT_PATH = Set.of(
+            AdmissionControlService.class, PricingService.class, OrderWriteBatcher.class);
+
+    @Bean
+    public static LazyInitializationExcludeFilter checkoutPathEagerFilter() {
+        return (beanName, beanDefinition, beanType) -> CHECKOUT_PATH.contains(beanType);
+    }
+}
@@ -3,6 +3,8 @@ package com.ecommerce.ecommerce.controller;
 import com.ecommerce.ecommerce.dto.AddToCartRequest;
 import com.ecommerce.ecommerce.dto.CartItemResponse;
 import com.ecommerce.ecommerce.model.CartItem;
+import com.ecommerce.ecommerce.querybudget.QueryBudget;
+import com.ecommerce.ecommerce.service.AdmissionControlService;
 import com.ecommerce.ecommerce.service.CartService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
@@ -20,14 +22,20 @@ import java.util.Map;
 public class CartController {
 
     private final CartService cartService;
+    private final AdmissionControlService admissionControlService;
 
     @PostMapping("/add")
+    @QueryBudget(commands = 2)
     public ResponseEntity<CartItem> addToCart(@Valid @RequestBody AddToCartRequest request) {
-        CartItem cartItem = cartService.addToCart(request);
-        return ResponseEntity.status(HttpStatus.CREATED).body(cartItem);
+        try (AdmissionControlService.Permit permit = admissionControlService.admit(request.getUserId())) {
+            CartItem cartItem = cartService.addToCart(request);
+            permit.succeeded();
+            return ResponseEntity.status(HttpStatus.CREATED).body(cartItem);
+        }
     }
 
     @GetMapping("/{userId}")
+    @QueryBudget(commands = 2) // Cart document plus one batched product lookup
     public ResponseEntity<List<CartItemResponse>> getCartItems(@PathVariable String userId) {
         List<CartItemResponse> cartItems = cartService.getCartItems(userId);
         return ResponseEntity.ok(cartItems);
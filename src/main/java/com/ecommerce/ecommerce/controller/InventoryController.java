@@ -0,0 +1,40 @@
+package com.ecommerce.ecommerce.controller;
+
+import com.ecommerce.ecommerce.dto.CreateWarehouseRequest;
+import com.ecommerce.ecommerce.dto.WarehouseStockRequest;
+import com.ecommerce.ecommerce.model.Product;
+import com.ecommerce.ecommerce.model.Warehouse;
+import com.ecommerce.ecommerce.service.InventoryService;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/inventory")
+@RequiredArgsConstructor
+public class InventoryController {
+
+    private final InventoryService inventoryService;
+
+    @PostMapping("/warehouses")
+    public ResponseEntity<Warehouse> createWarehouse(@Valid @RequestBody CreateWarehouseRequest request) {
+        Warehouse warehouse = inventoryService.createWarehouse(request);
+        return ResponseEntity.status(HttpStatus.CREATED).body(warehouse);
+    }
+
+    @GetMapping("/warehouses")
+    public ResponseEntity<List<Warehouse>> getWarehouses() {
+        return ResponseEntity.ok(inventoryService.getWarehouses());
+    }
+
+    @PutMapping("/products/{productId}/warehouses/{warehouseId}")
+    public ResponseEntity<Product> setWarehouseStock(@PathVariable String productId, @PathVariable String warehouseId,
+                                                     @Valid @RequestBody WarehouseStockRequest request) {
+        Product product = inventoryService.setWarehouseStock(productId, warehouseId, request.getQuantity());
+        return ResponseEntity.ok(product);
+    }
+}
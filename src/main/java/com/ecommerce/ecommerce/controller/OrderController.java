@@ -3,6 +3,8 @@ package com.ecommerce.ecommerce.controller;
 import com.ecommerce.ecommerce.dto.CreateOrderRequest;
 import com.ecommerce.ecommerce.dto.OrderResponse;
 import com.ecommerce.ecommerce.model.Order;
+import com.ecommerce.ecommerce.querybudget.QueryBudget;
+import com.ecommerce.ecommerce.service.AdmissionControlService;
 import com.ecommerce.ecommerce.service.OrderService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
@@ -18,14 +20,20 @@ import java.util.List;
 public class OrderController {
 
     private final OrderService orderService;
+    private final AdmissionControlService admissionControlService;
 
     @PostMapping
+    @QueryBudget(commands = 10) // Stock and order writes go through the batcher thread and are not counted here
     public ResponseEntity<Order> createOrder(@Valid @RequestBody CreateOrderRequest request) {
-        Order order = orderService.createOrder(request);
-        return ResponseEntity.status(HttpStatus.CREATED).body(order);
+        try (AdmissionControlService.Permit permit = admissionControlService.admit(request.getUserId())) {
+            Order order = orderService.createOrder(request);
+            permit.succeeded();
+            return ResponseEntity.status(HttpStatus.CREATED).body(order);
+        }
     }
 
     @GetMapping("/{orderId}")
+    @QueryBudget(commands = 3, documents = 2)
     public ResponseEntity<OrderResponse> getOrderById(@PathVariable String orderId) {
         OrderResponse order = orderService.getOrderById(orderId);
         return ResponseEntity.ok(order);
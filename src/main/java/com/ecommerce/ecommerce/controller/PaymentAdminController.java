@@ -0,0 +1,24 @@
+package com.ecommerce.ecommerce.controller;
+
+import com.ecommerce.ecommerce.dto.ReconciliationReport;
+import com.ecommerce.ecommerce.service.PaymentReconciliationService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/api/admin/payments")
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "payments.reconciliation.endpoint.enabled", havingValue = "true")
+public class PaymentAdminController {
+
+    private final PaymentReconciliationService reconciliationService;
+
+    // Runs one reconciliation pass now instead of waiting for the scheduled job. Gateway calls share the
+    // job's rate limit, and a second request while a pass is running gets 503 instead of another pass.
+    @PostMapping("/reconcile")
+    public ResponseEntity<ReconciliationReport> reconcile() {
+        return ResponseEntity.ok(reconciliationService.reconcile());
+    }
+}
@@ -1,10 +1,14 @@
 package com.ecommerce.ecommerce.controller;
 
 import com.ecommerce.ecommerce.service.PaymentService;
+import com.ecommerce.ecommerce.signature.RazorpaySignatureVerifier;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import tools.jackson.core.JacksonException;
+import tools.jackson.core.type.TypeReference;
+import tools.jackson.databind.json.JsonMapper;
 
 import java.util.HashMap;
 import java.util.Map;
@@ -15,12 +19,36 @@ import java.util.Map;
 @Slf4j
 public class PaymentWebhookController {
 
+    private static final TypeReference<Map<String, Object>> WEBHOOK_TYPE = new TypeReference<>() { };
+
     private final PaymentService paymentService;
+    private final RazorpaySignatureVerifier signatureVerifier;
+    private final JsonMapper jsonMapper;
 
+    // The body is taken as raw bytes because the signature covers exactly what Razorpay sent. It is checked
+    // before anything else, so unsigned requests never reach Mongo, and parsed once only when it is valid.
     @PostMapping("/razorpay")
-    public ResponseEntity<Map<String, String>> handleRazorpayWebhook(@RequestBody Map<String, Object> webhookData) {
+    public ResponseEntity<Map<String, String>> handleRazorpayWebhook(
+            @RequestBody byte[] body,
+            @RequestHeader(value = "X-Razorpay-Signature", required = false) String signature) {
         log.info("Received Razorpay webhook");
 
+        if (!signatureVerifier.verifyWebhook(body, signature)) {
+            log.warn("Rejected Razorpay webhook with a missing or invalid signature");
+            Map<String, String> response = new HashMap<>();
+            response.put("message", "Invalid webhook signature");
+            return ResponseEntity.badRequest().body(response);
+        }
+
+        Map<String, Object> webhookData;
+        try {
+            webhookData = jsonMapper.readValue(body, WEBHOOK_TYPE);
+        } catch (JacksonException e) {
+            Map<String, String> response = new HashMap<>();
+            response.put("message", "Malformed webhook body");
+            return ResponseEntity.badRequest().body(response);
+        }
+
         try {
             paymentService.handleRazorpayWebhook(webhookData);
             
@@ -1,11 +1,19 @@
 package com.ecommerce.ecommerce.controller;
 
 import com.ecommerce.ecommerce.dto.CreateProductRequest;
+import com.ecommerce.ecommerce.dto.ProductBrowseResponse;
+import com.ecommerce.ecommerce.dto.TrendingProductResponse;
 import com.ecommerce.ecommerce.model.Product;
+import com.ecommerce.ecommerce.querybudget.QueryBudget;
+import com.ecommerce.ecommerce.service.CatalogBrowseService;
+import com.ecommerce.ecommerce.service.ProductJsonCache;
 import com.ecommerce.ecommerce.service.ProductService;
+import com.ecommerce.ecommerce.service.TrendingService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
@@ -17,6 +25,9 @@ import java.util.List;
 public class ProductController {
 
     private final ProductService productService;
+    private final ProductJsonCache productJsonCache;
+    private final TrendingService trendingService;
+    private final CatalogBrowseService catalogBrowseService;
 
     @PostMapping
     public ResponseEntity<Product> createProduct(@Valid @RequestBody CreateProductRequest request) {
@@ -25,20 +36,66 @@ public class ProductController {
     }
 
     @GetMapping
-    public ResponseEntity<List<Product>> getAllProducts() {
+    @QueryBudget(commands = 1, documents = 10000, bytes = 16777216) // The whole catalog, in one query
+    public ResponseEntity<byte[]> getAllProducts(
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
         List<Product> products = productService.getAllProducts();
-        return ResponseEntity.ok(products);
+        return jsonResponse(productJsonCache.list("all", products), acceptEncoding);
+    }
+
+    @GetMapping("/browse")
+    // One page find (at most max-page-size + 1 products), plus the $facet counts on the first page only
+    @QueryBudget(commands = 2, documents = 102)
+    public ResponseEntity<ProductBrowseResponse> browseProducts(
+            @RequestParam(required = false) Double minPrice,
+            @RequestParam(required = false) Double maxPrice,
+            @RequestParam(defaultValue = "false") boolean inStock,
+            @RequestParam(defaultValue = "newest") String sort,
+            @RequestParam(required = false) Integer pageSize,
+            @RequestParam(required = false) String pageToken) {
+        ProductBrowseResponse page = catalogBrowseService.browse(minPrice, maxPrice, inStock,
+                CatalogBrowseService.BrowseSort.parse(sort), pageSize, pageToken);
+        return ResponseEntity.ok(page);
+    }
+
+    @GetMapping("/trending")
+    public ResponseEntity<List<TrendingProductResponse>> getTrendingProducts() {
+        return ResponseEntity.ok(trendingService.getLeaderboard());
     }
 
     @GetMapping("/{id}")
-    public ResponseEntity<Product> getProductById(@PathVariable String id) {
-        Product product = productService.getProductById(id);
-        return ResponseEntity.ok(product);
+    @QueryBudget(commands = 1, documents = 1)
+    public ResponseEntity<byte[]> getProductById(@PathVariable String id,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        Product product = productService.getCatalogProduct(id);
+        return jsonResponse(productJsonCache.product(product), acceptEncoding);
+    }
+
+    @GetMapping("/{id}/frequently-bought-together")
+    @QueryBudget(commands = 1, documents = 50)
+    public ResponseEntity<byte[]> getFrequentlyBoughtTogether(@PathVariable String id,
+            @RequestParam(defaultValue = "5") int limit,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        List<Product> products = productService.getFrequentlyBoughtTogether(id, Math.min(limit, 50));
+        return jsonResponse(productJsonCache.list(products), acceptEncoding);
     }
 
     @GetMapping("/search")
-    public ResponseEntity<List<Product>> searchProducts(@RequestParam String q) {
+    public ResponseEntity<byte[]> searchProducts(@RequestParam String q,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
         List<Product> products = productService.searchProducts(q);
-        return ResponseEntity.ok(products);
+        return jsonResponse(productJsonCache.list(products), acceptEncoding);
+    }
+
+    // Writes the pre-encoded bytes as-is, picking the gzip variant when the client accepts it
+    private ResponseEntity<byte[]> jsonResponse(ProductJsonCache.EncodedJson json, String acceptEncoding) {
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+
+        if (json.isCompressible() && acceptEncoding != null && acceptEncoding.contains("gzip")) {
+            return response.header(HttpHeaders.CONTENT_ENCODING, "gzip").body(json.getGzip());
+        }
+        return response.body(json.getIdentity());
     }
 }
@@ -0,0 +1,73 @@
+package com.ecommerce.ecommerce.controller;
+
+import com.ecommerce.ecommerce.service.ProfilingService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/admin/profiling")
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "profiling.endpoint.enabled", havingValue = "true")
+public class ProfilingController {
+
+    private final ProfilingService profilingService;
+
+    @PostMapping("/recordings")
+    public ResponseEntity<Map<String, Object>> startRecording(
+            @RequestParam(defaultValue = "60") long durationSeconds,
+            @RequestParam(defaultValue = "profile") String settings) {
+        if (durationSeconds <= 0) {
+            throw new IllegalArgumentException("durationSeconds must be positive");
+        }
+        Map<String, Object> recording = profilingService.start(Duration.ofSeconds(durationSeconds), settings);
+        return ResponseEntity.status(HttpStatus.CREATED).body(recording);
+    }
+
+    @GetMapping("/recordings")
+    public ResponseEntity<List<Map<String, Object>>> listRecordings() {
+        return ResponseEntity.ok(profilingService.list());
+    }
+
+    @PostMapping("/recordings/{id}/stop")
+    public ResponseEntity<Map<String, Object>> stopRecording(@PathVariable long id) {
+        return ResponseEntity.ok(profilingService.stop(id));
+    }
+
+    // Streams the .jfr file; works on running recordings too, returning the data captured so far
+    @GetMapping("/recordings/{id}/download")
+    public ResponseEntity<StreamingResponseBody> downloadRecording(@PathVariable long id) {
+        Path file = profilingService.dump(id);
+        StreamingResponseBody body = out -> {
+            try {
+                Files.copy(file, out);
+            } finally {
+                Files.deleteIfExists(file);
+            }
+        };
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_OCTET_STREAM)
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"recording-" + id + ".jfr\"")
+                .body(body);
+    }
+
+    @DeleteMapping("/recordings/{id}")
+    public ResponseEntity<Map<String, String>> deleteRecording(@PathVariable long id) {
+        profilingService.close(id);
+        Map<String, String> response = new HashMap<>();
+        response.put("message", "Recording deleted successfully");
+        return ResponseEntity.ok(response);
+    }
+}
@@ -0,0 +1,48 @@
+package com.ecommerce.ecommerce.controller;
+
+import com.ecommerce.ecommerce.dto.OrderResponse;
+import com.ecommerce.ecommerce.model.Order;
+import com.ecommerce.ecommerce.model.Product;
+import com.ecommerce.ecommerce.service.ReactiveReadService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+// Opt-in reactive read endpoints served by Spring MVC's async support. Lists are streamed with
+// back-pressure as NDJSON, or collected into a JSON array for clients that ask for application/json.
+@RestController
+@RequestMapping("/api/reactive")
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "reactive.read-path.enabled", havingValue = "true")
+public class ReactiveReadController {
+
+    private final ReactiveReadService reactiveReadService;
+
+    @GetMapping(value = "/products", produces = {MediaType.APPLICATION_NDJSON_VALUE, MediaType.APPLICATION_JSON_VALUE})
+    public Flux<Product> getAllProducts() {
+        return reactiveReadService.getAllProducts();
+    }
+
+    @GetMapping("/products/{id}")
+    public Mono<Product> getProductById(@PathVariable String id) {
+        return reactiveReadService.getProductById(id);
+    }
+
+    @GetMapping(value = "/products/search", produces = {MediaType.APPLICATION_NDJSON_VALUE, MediaType.APPLICATION_JSON_VALUE})
+    public Flux<Product> searchProducts(@RequestParam String q) {
+        return reactiveReadService.searchProducts(q);
+    }
+
+    @GetMapping("/orders/{orderId}")
+    public Mono<OrderResponse> getOrderById(@PathVariable String orderId) {
+        return reactiveReadService.getOrderById(orderId);
+    }
+
+    @GetMapping(value = "/orders/user/{userId}", produces = {MediaType.APPLICATION_NDJSON_VALUE, MediaType.APPLICATION_JSON_VALUE})
+    public Flux<Order> getUserOrders(@PathVariable String userId) {
+        return reactiveReadService.getUserOrders(userId);
+    }
+}
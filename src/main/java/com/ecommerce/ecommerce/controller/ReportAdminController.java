@@ -0,0 +1,29 @@
+package com.ecommerce.ecommerce.controller;
+
+import com.ecommerce.ecommerce.service.SalesRollupService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.HashMap;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/admin/reports")
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "reports.rollup-rebuild.endpoint.enabled", havingValue = "true")
+public class ReportAdminController {
+
+    private final SalesRollupService salesRollupService;
+
+    // Recomputes every sales rollup from all orders, including the archive. A second request while a
+    // rebuild is running on any node gets 503 instead of another rebuild.
+    @PostMapping("/sales/rebuild")
+    public ResponseEntity<Map<String, String>> rebuild() {
+        salesRollupService.rebuild();
+        Map<String, String> response = new HashMap<>();
+        response.put("message", "Sales rollups rebuilt successfully");
+        return ResponseEntity.ok(response);
+    }
+}
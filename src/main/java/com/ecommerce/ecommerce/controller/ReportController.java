@@ -0,0 +1,50 @@
+package com.ecommerce.ecommerce.controller;
+
+import com.ecommerce.ecommerce.model.SalesByDay;
+import com.ecommerce.ecommerce.model.SalesByProductDay;
+import com.ecommerce.ecommerce.model.SalesByStatus;
+import com.ecommerce.ecommerce.service.SalesRollupService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/reports")
+@RequiredArgsConstructor
+public class ReportController {
+
+    private static final long MAX_RANGE_DAYS = 366;
+
+    private final SalesRollupService salesRollupService;
+
+    @GetMapping("/sales/products/{productId}/days/{day}")
+    public ResponseEntity<SalesByProductDay> getProductDay(@PathVariable String productId, @PathVariable String day) {
+        return ResponseEntity.ok(salesRollupService.getProductDay(productId, day));
+    }
+
+    @GetMapping("/sales/products/{productId}")
+    public ResponseEntity<List<SalesByProductDay>> getProductDays(
+            @PathVariable String productId,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        if (to.isBefore(from) || ChronoUnit.DAYS.between(from, to) >= MAX_RANGE_DAYS) {
+            throw new IllegalArgumentException("Date range must be between 1 and " + MAX_RANGE_DAYS + " days");
+        }
+        return ResponseEntity.ok(salesRollupService.getProductDays(productId, from, to));
+    }
+
+    @GetMapping("/sales/days/{day}")
+    public ResponseEntity<SalesByDay> getDay(@PathVariable String day) {
+        return ResponseEntity.ok(salesRollupService.getDay(day));
+    }
+
+    @GetMapping("/sales/status")
+    public ResponseEntity<List<SalesByStatus>> getStatusTotals() {
+        return ResponseEntity.ok(salesRollupService.getStatusTotals());
+    }
+}
@@ -12,4 +12,11 @@ import jakarta.validation.constraints.NotBlank;
 public class CreateOrderRequest {
     @NotBlank(message = "User ID is required")
     private String userId;
+
+    private String couponCode;
+
+    // Delivery location; when set, stock is taken from the nearest warehouses
+    private Double shippingLatitude;
+
+    private Double shippingLongitude;
 }
@@ -0,0 +1,22 @@
+package com.ecommerce.ecommerce.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import jakarta.validation.constraints.NotBlank;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CreateWarehouseRequest {
+    @NotBlank(message = "Warehouse ID is required")
+    private String id;
+
+    @NotBlank(message = "Warehouse name is required")
+    private String name;
+
+    private Double latitude;
+
+    private Double longitude;
+}
@@ -3,6 +3,7 @@ package com.ecommerce.ecommerce.dto;
 import com.ecommerce.ecommerce.model.OrderItem;
 import com.ecommerce.ecommerce.model.OrderStatus;
 import com.ecommerce.ecommerce.model.Payment;
+import com.ecommerce.ecommerce.model.Shipment;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
@@ -17,8 +18,13 @@ public class OrderResponse {
     private String id;
     private String userId;
     private Double totalAmount;
+    private Long subtotalPaise;
+    private Long discountPaise;
+    private Long taxPaise;
+    private Long totalPaise;
     private OrderStatus status;
     private Instant createdAt;
     private List<OrderItem> items;
+    private List<Shipment> shipments;
     private Payment payment;
 }
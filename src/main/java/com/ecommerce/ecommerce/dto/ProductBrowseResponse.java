@@ -0,0 +1,29 @@
+package com.ecommerce.ecommerce.dto;
+
+import com.ecommerce.ecommerce.model.Product;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductBrowseResponse {
+    private List<Product> items;
+    private String nextPageToken; // Null on the last page
+    private Long total; // Products matching the filters, across all pages; counts are null after the first page
+    private List<PriceBucket> priceBuckets;
+    private Long inStock;
+    private Long outOfStock;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class PriceBucket {
+        private Double min;
+        private Double max; // Null for the open-ended top bucket
+        private Long count;
+    }
+}
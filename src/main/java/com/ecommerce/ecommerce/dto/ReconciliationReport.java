@@ -0,0 +1,18 @@
+package com.ecommerce.ecommerce.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReconciliationReport {
+    private Long examined;
+    private Long succeeded;
+    private Long failed;
+    private Long unchanged; // Still in progress at the gateway, or too young to give up on
+    private Long errors; // Gateway calls or order updates that failed; retried on the next run
+    private Long durationMillis;
+    private Double paymentsPerSecond;
+}
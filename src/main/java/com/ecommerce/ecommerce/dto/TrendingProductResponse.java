@@ -0,0 +1,13 @@
+package com.ecommerce.ecommerce.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TrendingProductResponse {
+    private String productId;
+    private Long score;
+}
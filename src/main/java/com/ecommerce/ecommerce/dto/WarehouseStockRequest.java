@@ -0,0 +1,17 @@
+package com.ecommerce.ecommerce.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class WarehouseStockRequest {
+    @NotNull(message = "Quantity is required")
+    @Min(value = 0, message = "Stock cannot be negative")
+    private Integer quantity;
+}
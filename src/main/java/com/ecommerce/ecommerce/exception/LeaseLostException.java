@@ -0,0 +1,7 @@
+package com.ecommerce.ecommerce.exception;
+
+public class LeaseLostException extends RuntimeException {
+    public LeaseLostException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,13 @@
+package com.ecommerce.ecommerce.exception;
+
+import lombok.Getter;
+
+@Getter
+public class RateLimitedException extends RuntimeException {
+    private final long retryAfterSeconds;
+
+    public RateLimitedException(String message, long retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+}
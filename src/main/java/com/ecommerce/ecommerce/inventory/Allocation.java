@@ -0,0 +1,8 @@
+package com.ecommerce.ecommerce.inventory;
+
+import com.ecommerce.ecommerce.model.Shipment;
+
+import java.util.List;
+
+public record Allocation(List<Shipment> shipments, List<StockAllocation> decrements) {
+}
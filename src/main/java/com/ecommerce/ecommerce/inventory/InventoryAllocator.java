@@ -0,0 +1,141 @@
+package com.ecommerce.ecommerce.inventory;
+
+import com.ecommerce.ecommerce.exception.InsufficientStockException;
+import com.ecommerce.ecommerce.model.OrderItem;
+import com.ecommerce.ecommerce.model.Product;
+import com.ecommerce.ecommerce.model.Shipment;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// Splits order lines across warehouses in memory, from a stock snapshot taken with the products.
+// Minimizing shipments is set cover, so this is the usual greedy approximation: repeatedly open the
+// source that can ship the most remaining lines in full, nearest first on ties. Lines no single source
+// can fill are then split, drawing on already opened sources before new ones, nearest first. Un-located
+// stock (total minus all locations) is one more source, ranked after every warehouse.
+// Work is O(sources^2 x lines) on int arrays; the snapshot is re-checked atomically by the guarded
+// per-source decrements, so a stale read fails the order rather than overselling.
+public final class InventoryAllocator {
+
+    private InventoryAllocator() {
+    }
+
+    // warehouseIds: the warehouses that may ship, nearest to the delivery location first
+    public static Allocation allocate(List<OrderItem> items, Map<String, Product> products, List<String> warehouseIds) {
+        int lineCount = items.size();
+        int sourceCount = warehouseIds.size() + 1; // The last source is un-located stock
+        int unlocated = sourceCount - 1;
+        int[][] available = new int[lineCount][sourceCount];
+        int[] remaining = new int[lineCount];
+        int[][] taken = new int[sourceCount][lineCount];
+
+        for (int line = 0; line < lineCount; line++) {
+            OrderItem item = items.get(line);
+            Product product = products.get(item.getProductId());
+            Map<String, Integer> stockByWarehouse = product.getStockByWarehouse() != null ? product.getStockByWarehouse() : Map.of();
+
+            int total = 0;
+            for (int s = 0; s < unlocated; s++) {
+                Integer stock = stockByWarehouse.get(warehouseIds.get(s));
+                available[line][s] = stock != null && stock > 0 ? stock : 0;
+                total += available[line][s];
+            }
+            available[line][unlocated] = unlocatedStock(product);
+            total += available[line][unlocated];
+
+            if (total < item.getQuantity()) {
+                throw new InsufficientStockException("Insufficient stock for product: " + product.getName()
+                        + ". Available: " + total + ", Required: " + item.getQuantity());
+            }
+            remaining[line] = item.getQuantity();
+        }
+        int open = lineCount;
+
+        // Greedy cover with whole lines
+        boolean[] opened = new boolean[sourceCount];
+        while (open > 0) {
+            int best = -1;
+            int bestLines = 0;
+            for (int s = 0; s < sourceCount; s++) {
+                if (opened[s]) {
+                    continue;
+                }
+                int lines = 0;
+                for (int line = 0; line < lineCount; line++) {
+                    if (remaining[line] > 0 && available[line][s] >= remaining[line]) {
+                        lines++;
+                    }
+                }
+                if (lines > bestLines) { // Strictly greater, so the nearest wins a tie
+                    best = s;
+                    bestLines = lines;
+                }
+            }
+            if (best < 0) {
+                break;
+            }
+            opened[best] = true;
+            for (int line = 0; line < lineCount; line++) {
+                if (remaining[line] > 0 && available[line][best] >= remaining[line]) {
+                    taken[best][line] = remaining[line];
+                    remaining[line] = 0;
+                    open--;
+                }
+            }
+        }
+
+        // Split what is left, opened sources first
+        for (int line = 0; line < lineCount && open > 0; line++) {
+            if (remaining[line] == 0) {
+                continue;
+            }
+            for (int pass = 0; pass < 2 && remaining[line] > 0; pass++) {
+                for (int s = 0; s < sourceCount && remaining[line] > 0; s++) {
+                    if (opened[s] != (pass == 0)) {
+                        continue;
+                    }
+                    int quantity = Math.min(available[line][s], remaining[line]);
+                    if (quantity > 0) {
+                        taken[s][line] = quantity;
+                        remaining[line] -= quantity;
+                        opened[s] = true;
+                    }
+                }
+            }
+            open--;
+        }
+
+        List<Shipment> shipments = new ArrayList<>();
+        List<StockAllocation> decrements = new ArrayList<>();
+        for (int s = 0; s < sourceCount; s++) {
+            if (!opened[s]) {
+                continue;
+            }
+            String warehouseId = s == unlocated ? null : warehouseIds.get(s);
+            Map<String, Integer> quantities = new LinkedHashMap<>();
+            for (int line = 0; line < lineCount; line++) {
+                if (taken[s][line] > 0) {
+                    String productId = items.get(line).getProductId();
+                    quantities.put(productId, taken[s][line]);
+                    decrements.add(new StockAllocation(productId, warehouseId, taken[s][line]));
+                }
+            }
+            shipments.add(new Shipment(warehouseId, quantities));
+        }
+        return new Allocation(shipments, decrements);
+    }
+
+    // Total minus every location, including inactive warehouses, which keep their stock but never ship
+    static int unlocatedStock(Product product) {
+        int located = 0;
+        if (product.getStockByWarehouse() != null) {
+            for (Integer stock : product.getStockByWarehouse().values()) {
+                located += stock != null ? stock : 0;
+            }
+        }
+        int total = product.getStock() != null ? product.getStock() : 0;
+        return Math.max(0, total - located);
+    }
+}
@@ -0,0 +1,5 @@
+package com.ecommerce.ecommerce.inventory;
+
+// Units of one product taken from one warehouse; warehouseId is null for un-located stock
+public record StockAllocation(String productId, String warehouseId, int quantity) {
+}
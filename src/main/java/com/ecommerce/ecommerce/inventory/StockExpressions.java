@@ -0,0 +1,25 @@
+package com.ecommerce.ecommerce.inventory;
+
+import org.bson.Document;
+
+import java.util.List;
+
+// Product.stock is un-located stock plus the sum of stockByWarehouse. Un-located stock is never stored;
+// these expressions derive it inside Mongo so guards and updates keep the invariant atomically.
+public final class StockExpressions {
+
+    private StockExpressions() {
+    }
+
+    // Sum of all per-warehouse quantities; 0 for products without locations
+    public static Document locatedTotal() {
+        return new Document("$sum", new Document("$map", new Document()
+                .append("input", new Document("$objectToArray", new Document("$ifNull", List.of("$stockByWarehouse", new Document()))))
+                .append("in", "$$this.v")));
+    }
+
+    // $expr condition: un-located stock is at least the given quantity
+    public static Document unlocatedAtLeast(int quantity) {
+        return new Document("$gte", List.of(new Document("$subtract", List.of("$stock", locatedTotal())), quantity));
+    }
+}
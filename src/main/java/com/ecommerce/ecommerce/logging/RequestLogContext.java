@@ -0,0 +1,99 @@
+package com.ecommerce.ecommerce.logging;
+
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayDeque;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Per-thread holding area for the INFO and DEBUG events of a request that was not sampled. They are
+// replayed to the appenders if the request turns out slow or failed, and dropped otherwise, so the full
+// detail is only paid for on requests worth looking at. Events are held raw (level, pattern, arguments)
+// and only formatted when replayed; arguments mutated before then are logged in their later state.
+public final class RequestLogContext {
+
+    private static final ThreadLocal<Buffer> BUFFER = new ThreadLocal<>();
+    private static final ThreadLocal<Boolean> REPLAYING = new ThreadLocal<>();
+    private static final AtomicLong discarded = new AtomicLong();
+
+    // A request's held events; detached from the thread when the request completes asynchronously
+    public static final class Buffer {
+        private final ArrayDeque<ILoggingEvent> events;
+        private final int capacity;
+
+        private Buffer(int capacity) {
+            this.events = new ArrayDeque<>(Math.min(capacity, 64));
+            this.capacity = capacity;
+        }
+    }
+
+    private RequestLogContext() {
+    }
+
+    public static void defer(int capacity) {
+        BUFFER.set(new Buffer(capacity));
+    }
+
+    // True when the event was held back for this thread's request; the oldest event goes when full
+    static boolean offer(ILoggingEvent event) {
+        Buffer buffer = BUFFER.get();
+        if (buffer == null) {
+            return false;
+        }
+        // Only what belongs to this thread is captured now; formatting waits for a replay
+        event.getThreadName();
+        event.getMDCPropertyMap();
+        if (buffer.events.size() == buffer.capacity) {
+            buffer.events.pollFirst();
+            discarded.incrementAndGet();
+        }
+        buffer.events.addLast(event);
+        return true;
+    }
+
+    static boolean isReplaying() {
+        return REPLAYING.get() != null;
+    }
+
+    // Takes the buffer off this thread, for a request that will complete on another one
+    public static Buffer detach() {
+        Buffer buffer = BUFFER.get();
+        BUFFER.remove();
+        return buffer;
+    }
+
+    // Installs a detached buffer on the completing thread; null (a sampled request) installs nothing
+    public static void attach(Buffer buffer) {
+        if (buffer != null) {
+            BUFFER.set(buffer);
+        }
+    }
+
+    public static void flush() {
+        Buffer buffer = detach();
+        if (buffer == null || buffer.events.isEmpty()) {
+            return;
+        }
+        LoggerContext loggerContext = (LoggerContext) LoggerFactory.getILoggerFactory();
+        REPLAYING.set(Boolean.TRUE);
+        try {
+            for (ILoggingEvent event : buffer.events) {
+                loggerContext.getLogger(event.getLoggerName()).callAppenders(event);
+            }
+        } finally {
+            REPLAYING.remove();
+        }
+    }
+
+    public static void discard() {
+        Buffer buffer = detach();
+        if (buffer != null) {
+            discarded.addAndGet(buffer.events.size());
+        }
+    }
+
+    public static long discardedCount() {
+        return discarded.get();
+    }
+}
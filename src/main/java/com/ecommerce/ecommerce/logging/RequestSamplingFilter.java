@@ -0,0 +1,154 @@
+package com.ecommerce.ecommerce.logging;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.slf4j.MDC;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+
+// Decides per request whether its INFO and DEBUG logs are written. A sampled fraction is logged live;
+// the rest are buffered and only written when the request is slow or ends in a 5xx, together with a
+// structured summary event. Runs first, so every other filter's logs fall under the decision. Async
+// requests are summarized when the async processing completes, with their final status and duration.
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+@Slf4j
+public class RequestSamplingFilter extends OncePerRequestFilter {
+
+    private static final String REQUEST_ID_HEADER = "X-Request-Id";
+
+    @Value("${logging.sampling.enabled:true}")
+    private boolean enabled;
+
+    @Value("${logging.sampling.rate:0.01}")
+    private double sampleRate;
+
+    @Value("${logging.sampling.slow-threshold-ms:500}")
+    private long slowThresholdMillis;
+
+    @Value("${logging.sampling.buffer-size:256}")
+    private int bufferSize;
+
+    public RequestSamplingFilter(MeterRegistry meterRegistry) {
+        FunctionCounter.builder("logging.events.dropped", RequestLogContext.class, type -> RequestLogContext.discardedCount())
+                .tag("reason", "unsampled")
+                .register(meterRegistry);
+        FunctionCounter.builder("logging.events.dropped", SamplingAppender.class, type -> SamplingAppender.rateLimitedCount())
+                .tag("reason", "rate_limited")
+                .register(meterRegistry);
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !enabled;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        String requestId = request.getHeader(REQUEST_ID_HEADER);
+        MDC.put("requestId", requestId != null && !requestId.isBlank() ? requestId : UUID.randomUUID().toString());
+        boolean sampled = ThreadLocalRandom.current().nextDouble() < sampleRate;
+        if (!sampled) {
+            RequestLogContext.defer(bufferSize);
+        }
+
+        long started = System.nanoTime();
+        boolean threw = true;
+        try {
+            chain.doFilter(request, response);
+            threw = false;
+        } finally {
+            if (!threw && request.isAsyncStarted()) {
+                // The response is written later on another thread; log once it is really complete
+                request.getAsyncContext().addListener(new CompletionListener(request, response, started, sampled,
+                        MDC.get("requestId"), RequestLogContext.detach()));
+            } else {
+                finish(request, threw ? 500 : response.getStatus(), started, sampled);
+            }
+            MDC.remove("requestId");
+        }
+    }
+
+    private void finish(HttpServletRequest request, int status, long started, boolean sampled) {
+        long durationMillis = (System.nanoTime() - started) / 1_000_000;
+        boolean detail = status >= 500 || durationMillis >= slowThresholdMillis;
+
+        log.atInfo()
+                .addKeyValue("method", request.getMethod())
+                .addKeyValue("path", request.getRequestURI())
+                .addKeyValue("status", status)
+                .addKeyValue("durationMs", durationMillis)
+                .addKeyValue("sampled", sampled)
+                .log(detail ? "Slow or failed request" : "Request completed");
+
+        if (detail) {
+            RequestLogContext.flush();
+        } else {
+            RequestLogContext.discard();
+        }
+    }
+
+    // Finishes an async request on the thread that completes it, with the buffer the request thread held
+    private final class CompletionListener implements AsyncListener {
+        private final HttpServletRequest request;
+        private final HttpServletResponse response;
+        private final long started;
+        private final boolean sampled;
+        private final String requestId;
+        private final RequestLogContext.Buffer deferred;
+        private volatile boolean failed;
+
+        private CompletionListener(HttpServletRequest request, HttpServletResponse response, long started,
+                                   boolean sampled, String requestId, RequestLogContext.Buffer deferred) {
+            this.request = request;
+            this.response = response;
+            this.started = started;
+            this.sampled = sampled;
+            this.requestId = requestId;
+            this.deferred = deferred;
+        }
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+            int status = response.getStatus();
+            MDC.put("requestId", requestId);
+            RequestLogContext.attach(deferred);
+            try {
+                finish(request, failed && status < 500 ? 500 : status, started, sampled);
+            } finally {
+                MDC.remove("requestId");
+            }
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+            failed = true;
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+            failed = true;
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+            // Re-dispatches keep this listener registered only if it re-adds itself
+            event.getAsyncContext().addListener(this);
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package com.ecommerce.ecommerce.logging;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.Appender;
+import ch.qos.logback.core.UnsynchronizedAppenderBase;
+import ch.qos.logback.core.spi.AppenderAttachable;
+import ch.qos.logback.core.spi.AppenderAttachableImpl;
+import com.ecommerce.ecommerce.admission.TokenBucket;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Sits in front of the async appender (see logback-spring.xml). WARN and above always pass. INFO and
+// below are held back for unsampled requests (RequestLogContext) and otherwise limited per logger by a
+// token bucket, so one chatty class cannot flood the ring buffer. Replayed events skip the limit.
+public class SamplingAppender extends UnsynchronizedAppenderBase<ILoggingEvent> implements AppenderAttachable<ILoggingEvent> {
+
+    private static final AtomicLong rateLimited = new AtomicLong();
+
+    private final AppenderAttachableImpl<ILoggingEvent> appenders = new AppenderAttachableImpl<>();
+    private final Map<String, TokenBucket> buckets = new ConcurrentHashMap<>();
+
+    private double ratePerSecond = 50;
+    private int burst = 100;
+
+    public static long rateLimitedCount() {
+        return rateLimited.get();
+    }
+
+    // 0 turns the per-logger limit off
+    public void setRatePerSecond(double ratePerSecond) {
+        this.ratePerSecond = ratePerSecond;
+    }
+
+    public void setBurst(int burst) {
+        this.burst = burst;
+    }
+
+    @Override
+    protected void append(ILoggingEvent event) {
+        if (event.getLevel().isGreaterOrEqual(Level.WARN) || RequestLogContext.isReplaying()) {
+            appenders.appendLoopOnAppenders(event);
+            return;
+        }
+        if (RequestLogContext.offer(event)) {
+            return;
+        }
+        if (ratePerSecond > 0 && !buckets.computeIfAbsent(event.getLoggerName(),
+                name -> new TokenBucket(burst, ratePerSecond)).tryAcquire()) {
+            rateLimited.incrementAndGet();
+            return;
+        }
+        appenders.appendLoopOnAppenders(event);
+    }
+
+    @Override
+    public void stop() {
+        super.stop();
+        appenders.detachAndStopAllAppenders();
+    }
+
+    @Override
+    public void addAppender(Appender<ILoggingEvent> appender) {
+        appenders.addAppender(appender);
+    }
+
+    @Override
+    public Iterator<Appender<ILoggingEvent>> iteratorForAppenders() {
+        return appenders.iteratorForAppenders();
+    }
+
+    @Override
+    public Appender<ILoggingEvent> getAppender(String name) {
+        return appenders.getAppender(name);
+    }
+
+    @Override
+    public boolean isAttached(Appender<ILoggingEvent> appender) {
+        return appenders.isAttached(appender);
+    }
+
+    @Override
+    public void detachAndStopAllAppenders() {
+        appenders.detachAndStopAllAppenders();
+    }
+
+    @Override
+    public boolean detachAppender(Appender<ILoggingEvent> appender) {
+        return appenders.detachAppender(appender);
+    }
+
+    @Override
+    public boolean detachAppender(String name) {
+        return appenders.detachAppender(name);
+    }
+}
@@ -0,0 +1,26 @@
+package com.ecommerce.ecommerce.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Document(collection = "carts")
+public class Cart {
+    @Id
+    private String userId; // One cart document per user
+
+    private Map<String, CartLine> lines = new LinkedHashMap<>(); // Keyed by product ID
+
+    @Indexed // Idle carts are found by this and expired by CartExpiryService
+    private Instant updatedAt; // Set by every cart write
+}
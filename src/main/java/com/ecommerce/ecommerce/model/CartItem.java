@@ -13,6 +13,8 @@ import jakarta.validation.constraints.NotNull;
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
+// One cart line as returned by the cart API (built by CartService.toCartItem). Also maps the legacy
+// per-line cart_items collection, which only CartMigrationService still reads.
 @Document(collection = "cart_items")
 public class CartItem {
     @Id
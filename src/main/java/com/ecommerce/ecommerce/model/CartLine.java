@@ -0,0 +1,13 @@
+package com.ecommerce.ecommerce.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CartLine {
+    private String productId;
+    private Integer quantity;
+}
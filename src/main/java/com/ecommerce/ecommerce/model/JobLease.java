@@ -0,0 +1,32 @@
+package com.ecommerce.ecommerce.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Document(collection = "job_leases")
+public class JobLease {
+    @Id
+    private String id; // jobName:partition
+
+    private String job;
+
+    private Integer partition;
+
+    private String owner;
+
+    private Long fencingToken; // Incremented on every takeover; a stale holder's writes carry an older token
+
+    private Instant expiresAt;
+
+    private Instant heartbeatAt;
+
+    private Instant lastRunAt;
+}
@@ -1,9 +1,11 @@
 package com.ecommerce.ecommerce.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 import java.time.Instant;
@@ -18,16 +20,39 @@ public class Order {
     @Id
     private String id;
 
+    @Indexed
     private String userId;
 
     private Double totalAmount;
 
+    // Authoritative amounts in paise; totalAmount is kept in rupees for API clients
+    private Long subtotalPaise;
+
+    private Long discountPaise;
+
+    private Long taxPaise;
+
+    private Long totalPaise;
+
     private OrderStatus status;
 
     private Instant createdAt;
 
+    private Instant paidAt; // Set while the order's sale is counted in the rollups; cleared if it leaves PAID
+
     private List<OrderItem> items = new ArrayList<>();
 
+    private List<Shipment> shipments = new ArrayList<>(); // Where each item ships from
+
+    // Set while a sales rollup rebuild is running on orders whose changes skipped the incremental rollups;
+    // the rebuild leaves them out and adds their final state once the new rollups are in place
+    @JsonIgnore
+    @Indexed(sparse = true)
+    private Boolean rollupDeferred;
+
+    @JsonIgnore
+    private List<OutboxEvent> pendingEvents = new ArrayList<>();
+
     public Order(String userId, Double totalAmount, OrderStatus status) {
         this.userId = userId;
         this.totalAmount = totalAmount;
@@ -0,0 +1,47 @@
+package com.ecommerce.ecommerce.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+// Domain event waiting in its aggregate's pendingEvents array. Stored in the same document write as the
+// state change it describes, then published and removed by OutboxRelayService.
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OutboxEvent {
+    private String eventId; // Consumers deduplicate on this; delivery is at least once
+
+    private String type;
+
+    private String aggregateType;
+
+    private String aggregateId;
+
+    private Map<String, Object> payload;
+
+    private Instant occurredAt;
+
+    // Relay bookkeeping, not part of the event: sinks that already accepted it, failed passes so far,
+    // and when the next attempt is due after a failure
+    @JsonIgnore
+    private List<String> deliveredTo = new ArrayList<>();
+
+    @JsonIgnore
+    private int attempts;
+
+    @JsonIgnore
+    private Instant nextAttemptAt;
+
+    public static OutboxEvent of(String aggregateType, String aggregateId, String type, Map<String, Object> payload) {
+        return new OutboxEvent(UUID.randomUUID().toString(), type, aggregateType, aggregateId, payload, Instant.now(),
+                new ArrayList<>(), 0, null);
+    }
+}
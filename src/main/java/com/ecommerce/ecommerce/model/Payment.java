@@ -1,33 +1,53 @@
 package com.ecommerce.ecommerce.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
 
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 @Document(collection = "payments")
+@CompoundIndex(name = "status_createdAt_id", def = "{'status': 1, 'createdAt': 1, '_id': 1}") // Reconciliation paging
 public class Payment {
     @Id
     private String id;
 
+    @Indexed
     private String orderId;
 
-    private Double amount;
+    private Double amount; // Rupees, for API clients
+
+    private Long amountPaise; // Authoritative; the order's totalPaise at the time of payment
 
     private PaymentStatus status;
 
+    @Indexed(sparse = true)
     private String paymentId; // External payment ID (from Razorpay or Mock)
 
+    @Indexed(sparse = true)
     private String razorpayOrderId; // Razorpay specific order ID
 
     private Instant createdAt;
 
+    // Set in the same write that settles the payment (webhook, verify or reconciliation), cleared once the
+    // order has been moved to match, so an order update that fails partway is retried by reconciliation
+    @JsonIgnore
+    @Indexed(sparse = true)
+    private Boolean orderSyncPending;
+
+    @JsonIgnore
+    private List<OutboxEvent> pendingEvents = new ArrayList<>();
+
     public Payment(String orderId, Double amount, PaymentStatus status) {
         this.orderId = orderId;
         this.amount = amount;
@@ -4,16 +4,26 @@ import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
 
+import java.util.LinkedHashMap;
+import java.util.Map;
+
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 @Document(collection = "products")
+// Browse sorts use (field, _id) so keyset pages are stable; name searches scan the name index keys
+@CompoundIndexes({
+        @CompoundIndex(name = "price_id", def = "{'price': 1, '_id': 1}"),
+        @CompoundIndex(name = "name_id", def = "{'name': 1, '_id': 1}")
+})
 public class Product {
     @Id
     private String id;
@@ -29,5 +39,9 @@ public class Product {
 
     @NotNull(message = "Stock is required")
     @Min(value = 0, message = "Stock cannot be negative")
-    private Integer stock;
+    private Integer stock; // Total: un-located stock plus the sum of stockByWarehouse
+
+    private Map<String, Integer> stockByWarehouse = new LinkedHashMap<>(); // Keyed by warehouse ID
+
+    private Long version; // Bumped on every write; keys cached representations
 }
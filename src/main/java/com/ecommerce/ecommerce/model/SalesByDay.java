@@ -0,0 +1,22 @@
+package com.ecommerce.ecommerce.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Document(collection = "sales_by_day")
+public class SalesByDay {
+    @Id
+    private String day; // yyyy-MM-dd, UTC
+
+    private Long orders;
+
+    private Long units;
+
+    private Long revenuePaise;
+}
@@ -0,0 +1,30 @@
+package com.ecommerce.ecommerce.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Document(collection = "sales_by_product_day")
+public class SalesByProductDay {
+    @Id
+    private Key id;
+
+    private Long orders;
+
+    private Long units;
+
+    private Long revenuePaise;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key {
+        private String productId;
+        private String day; // yyyy-MM-dd, UTC
+    }
+}
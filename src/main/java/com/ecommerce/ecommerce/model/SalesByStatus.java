@@ -0,0 +1,20 @@
+package com.ecommerce.ecommerce.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Document(collection = "sales_by_status")
+public class SalesByStatus {
+    @Id
+    private OrderStatus status;
+
+    private Long orders;
+
+    private Long amountPaise;
+}
@@ -0,0 +1,24 @@
+package com.ecommerce.ecommerce.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Document(collection = "scheduler_nodes")
+public class SchedulerNode {
+    @Id
+    private String nodeId;
+
+    @Indexed(expireAfter = "1h") // Long-dead nodes are cleaned up; liveness itself is decided by expiresAt
+    private Instant heartbeatAt;
+
+    private Instant expiresAt;
+}
@@ -0,0 +1,18 @@
+package com.ecommerce.ecommerce.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// The part of an order shipped from one warehouse
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class Shipment {
+    private String warehouseId; // Null for un-located stock
+
+    private Map<String, Integer> quantities = new LinkedHashMap<>(); // Keyed by product ID
+}
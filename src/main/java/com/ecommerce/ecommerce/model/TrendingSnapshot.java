@@ -0,0 +1,33 @@
+package com.ecommerce.ecommerce.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Document(collection = "trending_snapshots")
+public class TrendingSnapshot {
+    @Id
+    private String nodeId;
+
+    private Integer depth;
+
+    private Integer width;
+
+    private Long bucketMillis;
+
+    private Long newestBucketStart;
+
+    private List<byte[]> buckets; // Serialized Count-Min sketches, newest first
+
+    private List<String> candidates;
+
+    private Instant updatedAt;
+}
@@ -4,6 +4,7 @@ import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 import jakarta.validation.constraints.Email;
@@ -18,10 +19,12 @@ public class User {
     private String id;
 
     @NotBlank(message = "Username is required")
+    @Indexed(unique = true)
     private String username;
 
     @NotBlank(message = "Email is required")
     @Email(message = "Email should be valid")
+    @Indexed(unique = true)
     private String email;
 
     private String role;
@@ -0,0 +1,24 @@
+package com.ecommerce.ecommerce.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Document(collection = "warehouses")
+public class Warehouse {
+    @Id
+    private String id; // Short code such as "blr-1"; used as the key in Product.stockByWarehouse
+
+    private String name;
+
+    private Double latitude;
+
+    private Double longitude;
+
+    private boolean active = true; // Inactive warehouses keep their stock but are never allocated from
+}
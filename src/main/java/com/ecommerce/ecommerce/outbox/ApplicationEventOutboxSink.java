@@ -0,0 +1,23 @@
+package com.ecommerce.ecommerce.outbox;
+
+import com.ecommerce.ecommerce.model.OutboxEvent;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+// In-process delivery: any @EventListener(OutboxEvent.class) method in the application receives the events
+@Component
+@RequiredArgsConstructor
+public class ApplicationEventOutboxSink implements OutboxSink {
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    @Override
+    public void publish(List<OutboxEvent> events) {
+        for (OutboxEvent event : events) {
+            eventPublisher.publishEvent(event);
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package com.ecommerce.ecommerce.outbox;
+
+import com.ecommerce.ecommerce.model.OutboxEvent;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+// Appends events as JSON lines to a local file, or logs them when no path is set. Meant for tests and
+// local runs where no broker is available.
+@Component
+@Slf4j
+@ConditionalOnProperty(name = "outbox.sink.file.enabled", havingValue = "true")
+public class FileOutboxSink implements OutboxSink {
+
+    private final JsonMapper jsonMapper;
+    private final Path path;
+
+    public FileOutboxSink(JsonMapper jsonMapper, @Value("${outbox.sink.file.path:}") String path) {
+        this.jsonMapper = jsonMapper;
+        this.path = path.isBlank() ? null : Path.of(path);
+    }
+
+    @Override
+    public synchronized void publish(List<OutboxEvent> events) {
+        StringBuilder lines = new StringBuilder();
+        for (OutboxEvent event : events) {
+            lines.append(jsonMapper.writeValueAsString(event)).append('\n');
+        }
+
+        if (path == null) {
+            log.info("Outbox events:\n{}", lines);
+            return;
+        }
+        try {
+            Files.writeString(path, lines, StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to append outbox events to " + path, e);
+        }
+    }
+}
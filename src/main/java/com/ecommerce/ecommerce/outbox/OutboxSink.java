@@ -0,0 +1,20 @@
+package com.ecommerce.ecommerce.outbox;
+
+import com.ecommerce.ecommerce.model.OutboxEvent;
+import org.springframework.util.ClassUtils;
+
+import java.util.List;
+
+// Destination for relayed domain events. Every OutboxSink bean receives every event; a sink that throws
+// leaves the events pending for that sink only, and they are retried with backoff until they are
+// dead-lettered. Sinks that accepted them are not sent them again.
+public interface OutboxSink {
+
+    // Recorded on each event the sink accepts, so it must be stable across restarts
+    default String name() {
+        return ClassUtils.getUserClass(this).getSimpleName();
+    }
+
+    // Events of one aggregate, in the order they were written
+    void publish(List<OutboxEvent> events);
+}
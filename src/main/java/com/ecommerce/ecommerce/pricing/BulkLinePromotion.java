@@ -0,0 +1,29 @@
+package com.ecommerce.ecommerce.pricing;
+
+import lombok.RequiredArgsConstructor;
+
+// Percentage off any single line bought in at least the given quantity
+@RequiredArgsConstructor
+public class BulkLinePromotion implements PriceRule {
+
+    private final int minQuantity;
+    private final int discountBps;
+
+    @Override
+    public Stage stage() {
+        return Stage.PROMOTION;
+    }
+
+    @Override
+    public void apply(PricingContext context) {
+        int[] quantity = context.getQuantity();
+        long[] unitPaise = context.getUnitPaise();
+
+        for (int line = 0; line < context.getLineCount(); line++) {
+            if (quantity[line] >= minQuantity) {
+                // Off the undiscounted line, so promotion order does not matter
+                context.discountLine(line, Money.bpsFloor(unitPaise[line] * quantity[line], discountBps));
+            }
+        }
+    }
+}
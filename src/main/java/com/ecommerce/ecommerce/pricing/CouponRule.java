@@ -0,0 +1,23 @@
+package com.ecommerce.ecommerce.pricing;
+
+import lombok.RequiredArgsConstructor;
+
+// Flat amount off when the order carries the matching coupon code
+@RequiredArgsConstructor
+public class CouponRule implements PriceRule {
+
+    private final String code;
+    private final long amountOffPaise;
+
+    @Override
+    public Stage stage() {
+        return Stage.COUPON;
+    }
+
+    @Override
+    public void apply(PricingContext context) {
+        if (code.equalsIgnoreCase(context.getCouponCode())) {
+            context.discountCart(amountOffPaise);
+        }
+    }
+}
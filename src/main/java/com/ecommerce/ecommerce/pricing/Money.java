@@ -0,0 +1,26 @@
+package com.ecommerce.ecommerce.pricing;
+
+public final class Money {
+
+    private Money() {
+    }
+
+    // Prices are entered in rupees; everything downstream works in whole paise
+    public static long toPaise(Double rupees) {
+        return Math.round(rupees * 100);
+    }
+
+    public static double toRupees(long paise) {
+        return paise / 100.0;
+    }
+
+    // Basis points of an amount, rounded down (used for discounts)
+    public static long bpsFloor(long paise, int bps) {
+        return paise * bps / 10_000;
+    }
+
+    // Basis points of an amount, rounded half up (used for taxes)
+    public static long bpsHalfUp(long paise, int bps) {
+        return (paise * bps + 5_000) / 10_000;
+    }
+}
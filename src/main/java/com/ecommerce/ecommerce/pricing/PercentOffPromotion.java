@@ -0,0 +1,24 @@
+package com.ecommerce.ecommerce.pricing;
+
+import lombok.RequiredArgsConstructor;
+
+// Cart-wide percentage off once the subtotal reaches a threshold
+@RequiredArgsConstructor
+public class PercentOffPromotion implements PriceRule {
+
+    private final int discountBps;
+    private final long minSubtotalPaise;
+
+    @Override
+    public Stage stage() {
+        return Stage.PROMOTION;
+    }
+
+    @Override
+    public void apply(PricingContext context) {
+        if (context.getSubtotalPaise() >= minSubtotalPaise) {
+            // Off the subtotal, not what other promotions left, so promotion order does not matter
+            context.discountCart(Money.bpsFloor(context.getSubtotalPaise(), discountBps));
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package com.ecommerce.ecommerce.pricing;
+
+// A single step of the pricing pipeline. Any PriceRule bean is picked up by PricingService and run in
+// stage order, so coupons see the promoted amount and taxes see the final discounted amount. Rules in
+// the same stage run in bean order; promotions compute their discount from undiscounted amounts, so
+// that order does not change the result.
+public interface PriceRule {
+
+    enum Stage {
+        PROMOTION,
+        COUPON,
+        TAX
+    }
+
+    Stage stage();
+
+    void apply(PricingContext context);
+}
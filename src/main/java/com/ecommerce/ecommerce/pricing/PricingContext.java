@@ -0,0 +1,72 @@
+package com.ecommerce.ecommerce.pricing;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.Arrays;
+
+// Mutable, reusable scratch space for pricing one cart. Line data lives in primitive arrays that only
+// grow, so pricing a cart allocates nothing once the context has warmed up. Every discount is clamped
+// to what is still taxable, so the total discount never exceeds the subtotal whatever order rules run in.
+@Getter
+public final class PricingContext {
+
+    private long[] unitPaise = new long[16];
+    private int[] quantity = new int[16];
+    private long[] lineTotalPaise = new long[16];
+    private int lineCount;
+
+    private long subtotalPaise;
+    private long discountPaise;
+    private long taxPaise;
+
+    @Setter
+    private String couponCode;
+
+    public PricingContext reset() {
+        lineCount = 0;
+        subtotalPaise = 0;
+        discountPaise = 0;
+        taxPaise = 0;
+        couponCode = null;
+        return this;
+    }
+
+    public int addLine(long unitPricePaise, int lineQuantity) {
+        if (lineCount == unitPaise.length) {
+            int capacity = lineCount * 2;
+            unitPaise = Arrays.copyOf(unitPaise, capacity);
+            quantity = Arrays.copyOf(quantity, capacity);
+            lineTotalPaise = Arrays.copyOf(lineTotalPaise, capacity);
+        }
+
+        long lineTotal = unitPricePaise * lineQuantity;
+        unitPaise[lineCount] = unitPricePaise;
+        quantity[lineCount] = lineQuantity;
+        lineTotalPaise[lineCount] = lineTotal;
+        subtotalPaise += lineTotal;
+        return lineCount++;
+    }
+
+    public void discountLine(int line, long paise) {
+        long applied = Math.min(Math.min(paise, lineTotalPaise[line]), taxablePaise());
+        lineTotalPaise[line] -= applied;
+        discountPaise += applied;
+    }
+
+    public void discountCart(long paise) {
+        discountPaise += Math.max(0, Math.min(paise, taxablePaise()));
+    }
+
+    public void addTax(long paise) {
+        taxPaise += paise;
+    }
+
+    public long taxablePaise() {
+        return subtotalPaise - discountPaise;
+    }
+
+    public long totalPaise() {
+        return subtotalPaise - discountPaise + taxPaise;
+    }
+}
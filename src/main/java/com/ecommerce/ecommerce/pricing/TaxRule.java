@@ -0,0 +1,20 @@
+package com.ecommerce.ecommerce.pricing;
+
+import lombok.RequiredArgsConstructor;
+
+// Flat-rate tax on the discounted cart amount
+@RequiredArgsConstructor
+public class TaxRule implements PriceRule {
+
+    private final int rateBps;
+
+    @Override
+    public Stage stage() {
+        return Stage.TAX;
+    }
+
+    @Override
+    public void apply(PricingContext context) {
+        context.addTax(Money.bpsHalfUp(context.taxablePaise(), rateBps));
+    }
+}
@@ -0,0 +1,49 @@
+package com.ecommerce.ecommerce.profiling;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+// One phase of OrderService.createOrder. When the event is disabled, begin/finish do no work and the
+// JIT removes the allocation, so the instrumentation stays in place in production.
+@Name("com.ecommerce.CheckoutPhase")
+@Label("Checkout Phase")
+@Category({"Ecommerce", "Checkout"})
+@Description("Duration of one phase of order creation")
+@StackTrace(false)
+public class CheckoutPhaseEvent extends Event {
+
+    @Label("Phase")
+    private String phase;
+
+    @Label("User ID")
+    private String userId;
+
+    @Label("Lines")
+    private int lines;
+
+    @Label("Succeeded")
+    private boolean succeeded;
+
+    public static CheckoutPhaseEvent begin(String phase, String userId) {
+        CheckoutPhaseEvent event = new CheckoutPhaseEvent();
+        if (event.isEnabled()) {
+            event.phase = phase;
+            event.userId = userId;
+            event.begin();
+        }
+        return event;
+    }
+
+    public void finish(int lines, boolean succeeded) {
+        end();
+        if (shouldCommit()) {
+            this.lines = lines;
+            this.succeeded = succeeded;
+            commit();
+        }
+    }
+}
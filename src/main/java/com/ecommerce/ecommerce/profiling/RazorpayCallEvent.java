@@ -0,0 +1,45 @@
+package com.ecommerce.ecommerce.profiling;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("com.ecommerce.RazorpayCall")
+@Label("Razorpay Call")
+@Category({"Ecommerce", "Payments"})
+@Description("Outbound call to the Razorpay API")
+public class RazorpayCallEvent extends Event {
+
+    @Label("Operation")
+    private String operation;
+
+    @Label("Order ID")
+    private String orderId;
+
+    @Label("Amount (paise)")
+    private long amountPaise;
+
+    @Label("Succeeded")
+    private boolean succeeded;
+
+    public static RazorpayCallEvent begin(String operation, String orderId, long amountPaise) {
+        RazorpayCallEvent event = new RazorpayCallEvent();
+        if (event.isEnabled()) {
+            event.operation = operation;
+            event.orderId = orderId;
+            event.amountPaise = amountPaise;
+            event.begin();
+        }
+        return event;
+    }
+
+    public void finish(boolean succeeded) {
+        end();
+        if (shouldCommit()) {
+            this.succeeded = succeeded;
+            commit();
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package com.ecommerce.ecommerce.profiling;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name("com.ecommerce.Webhook")
+@Label("Payment Webhook")
+@Category({"Ecommerce", "Payments"})
+@Description("Handling of one inbound payment webhook")
+@StackTrace(false)
+public class WebhookEvent extends Event {
+
+    @Label("Provider")
+    private String provider;
+
+    @Label("Event Type")
+    private String eventType;
+
+    @Label("Outcome")
+    private String outcome;
+
+    public static WebhookEvent begin(String provider, String eventType) {
+        WebhookEvent event = new WebhookEvent();
+        if (event.isEnabled()) {
+            event.provider = provider;
+            event.eventType = eventType;
+            event.begin();
+        }
+        return event;
+    }
+
+    public void finish(String outcome) {
+        end();
+        if (shouldCommit()) {
+            this.outcome = outcome;
+            commit();
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package com.ecommerce.ecommerce.querybudget;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+// Declares how much database work one call to a controller method may do. Unset values (-1) fall back
+// to the db.budget.default-* properties.
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface QueryBudget {
+
+    int commands() default -1;
+
+    long documents() default -1;
+
+    long bytes() default -1;
+}
@@ -0,0 +1,119 @@
+package com.ecommerce.ecommerce.querybudget;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+import java.util.Map;
+
+// Tracks Mongo commands, documents and bytes per HTTP request, publishes them per endpoint, and logs
+// requests that exceed their @QueryBudget or repeat one query shape often enough to look like an N+1.
+// With db.budget.enforce=true (tests) an over-budget request fails instead. The check runs after the
+// handler, so the response may already be committed: MockMvc rethrows the exception to the test, but a
+// real client can still receive the handler's status and body. Enforce is for in-process tests only.
+@Component
+@Slf4j
+public class QueryBudgetFilter extends OncePerRequestFilter {
+
+    private final MeterRegistry meterRegistry;
+
+    @Value("${db.budget.enabled:true}")
+    private boolean enabled;
+
+    @Value("${db.budget.enforce:false}")
+    private boolean enforce;
+
+    @Value("${db.budget.default-commands:20}")
+    private int defaultCommands;
+
+    @Value("${db.budget.default-documents:1000}")
+    private long defaultDocuments;
+
+    @Value("${db.budget.default-bytes:4194304}")
+    private long defaultBytes;
+
+    @Value("${db.budget.repeated-shape-threshold:5}")
+    private int repeatedShapeThreshold;
+
+    public QueryBudgetFilter(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !enabled;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        RequestQueryStats stats = RequestQueryStats.start();
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            RequestQueryStats.end();
+        }
+
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        String endpoint = request.getMethod() + " " + (pattern != null ? pattern : "unmapped");
+        record(endpoint, stats);
+
+        String violation = check(request.getAttribute(HandlerMapping.BEST_MATCHING_HANDLER_ATTRIBUTE), stats);
+        if (violation != null) {
+            Counter.builder("db.request.over_budget").tag("endpoint", endpoint).register(meterRegistry).increment();
+            log.warn("{} exceeded its query budget: {}", endpoint, violation);
+            if (enforce) {
+                // Too late to change a committed response; this fails the calling test, not the client
+                throw new IllegalStateException(endpoint + " exceeded its query budget: " + violation);
+            }
+        }
+
+        Map.Entry<String, Integer> repeated = stats.mostRepeatedShape();
+        if (repeated != null && repeated.getValue() >= repeatedShapeThreshold) {
+            log.warn("Possible N+1 in {}: '{}' ran {} times", endpoint, repeated.getKey(), repeated.getValue());
+        }
+    }
+
+    private void record(String endpoint, RequestQueryStats stats) {
+        summary("db.request.commands", endpoint, null).record(stats.getCommands());
+        summary("db.request.documents", endpoint, null).record(stats.getDocuments());
+        summary("db.request.bytes", endpoint, "bytes").record(stats.getBytes());
+    }
+
+    private DistributionSummary summary(String name, String endpoint, String baseUnit) {
+        return DistributionSummary.builder(name)
+                .tag("endpoint", endpoint)
+                .baseUnit(baseUnit)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+
+    private String check(Object handler, RequestQueryStats stats) {
+        QueryBudget budget = handler instanceof HandlerMethod method ? method.getMethodAnnotation(QueryBudget.class) : null;
+        int maxCommands = budget != null && budget.commands() >= 0 ? budget.commands() : defaultCommands;
+        long maxDocuments = budget != null && budget.documents() >= 0 ? budget.documents() : defaultDocuments;
+        long maxBytes = budget != null && budget.bytes() >= 0 ? budget.bytes() : defaultBytes;
+
+        if (stats.getCommands() > maxCommands) {
+            return stats.getCommands() + " commands, budget " + maxCommands;
+        }
+        if (stats.getDocuments() > maxDocuments) {
+            return stats.getDocuments() + " documents, budget " + maxDocuments;
+        }
+        if (stats.getBytes() > maxBytes) {
+            return stats.getBytes() + " bytes, budget " + maxBytes;
+        }
+        return null;
+    }
+}
@@ -0,0 +1,78 @@
+package com.ecommerce.ecommerce.querybudget;
+
+import com.mongodb.event.CommandListener;
+import com.mongodb.event.CommandStartedEvent;
+import com.mongodb.event.CommandSucceededEvent;
+import org.bson.BsonArray;
+import org.bson.BsonBinaryWriter;
+import org.bson.BsonDocument;
+import org.bson.BsonValue;
+import org.bson.RawBsonDocument;
+import org.bson.codecs.BsonDocumentCodec;
+import org.bson.codecs.EncoderContext;
+import org.bson.io.BasicOutputBuffer;
+
+import java.util.Set;
+
+// Attributes driver commands to the current request. The synchronous driver calls listeners on the
+// thread that issued the command, which is what makes the thread-local attribution work.
+public class QueryStatsCommandListener implements CommandListener {
+
+    private static final Set<String> IGNORED = Set.of("hello", "isMaster", "ping", "endSessions", "killCursors");
+    private static final BsonDocumentCodec CODEC = new BsonDocumentCodec();
+
+    @Override
+    public void commandStarted(CommandStartedEvent event) {
+        RequestQueryStats stats = RequestQueryStats.current();
+        if (stats == null || IGNORED.contains(event.getCommandName())) {
+            return;
+        }
+        stats.recordCommand(shape(event.getCommandName(), event.getCommand()));
+    }
+
+    @Override
+    public void commandSucceeded(CommandSucceededEvent event) {
+        RequestQueryStats stats = RequestQueryStats.current();
+        if (stats == null || IGNORED.contains(event.getCommandName())) {
+            return;
+        }
+        BsonDocument response = event.getResponse();
+        stats.recordReply(replyDocuments(response), encodedSize(response));
+    }
+
+    // Command name, collection and filter field names: queries that differ only in values share a shape
+    private static String shape(String commandName, BsonDocument command) {
+        BsonValue collection = command.get(commandName);
+        StringBuilder shape = new StringBuilder(commandName).append(' ')
+                .append(collection != null && collection.isString() ? collection.asString().getValue() : "");
+
+        BsonValue filter = command.containsKey("filter") ? command.get("filter") : command.get("query");
+        if (filter != null && filter.isDocument()) {
+            shape.append(' ').append(filter.asDocument().keySet());
+        }
+        return shape.toString();
+    }
+
+    private static long replyDocuments(BsonDocument response) {
+        BsonValue cursor = response.get("cursor");
+        if (cursor != null && cursor.isDocument()) {
+            BsonDocument batch = cursor.asDocument();
+            BsonValue documents = batch.containsKey("firstBatch") ? batch.get("firstBatch") : batch.get("nextBatch");
+            return documents instanceof BsonArray array ? array.size() : 0;
+        }
+        BsonValue value = response.get("value"); // findAndModify
+        return value != null && value.isDocument() ? 1 : 0;
+    }
+
+    // The driver hands replies over as the raw bytes it received, so their size is already known; only a
+    // reply that was decoded some other way is re-encoded to measure it
+    private static long encodedSize(BsonDocument response) {
+        if (response instanceof RawBsonDocument raw) {
+            return raw.getByteBuffer().remaining();
+        }
+        try (BasicOutputBuffer buffer = new BasicOutputBuffer(); BsonBinaryWriter writer = new BsonBinaryWriter(buffer)) {
+            CODEC.encode(writer, response, EncoderContext.builder().build());
+            return buffer.getPosition();
+        }
+    }
+}
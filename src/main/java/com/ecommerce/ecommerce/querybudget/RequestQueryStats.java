@@ -0,0 +1,54 @@
+package com.ecommerce.ecommerce.querybudget;
+
+import lombok.Getter;
+
+import java.util.HashMap;
+import java.util.Map;
+
+// Database work done on behalf of one HTTP request. Bound to the request thread, so commands sent from
+// background threads (the group-commit batcher, reactive reads) are not attributed to the request.
+@Getter
+public class RequestQueryStats {
+
+    private static final ThreadLocal<RequestQueryStats> CURRENT = new ThreadLocal<>();
+
+    private int commands;
+    private long documents;
+    private long bytes;
+    private final Map<String, Integer> shapes = new HashMap<>();
+
+    public static RequestQueryStats start() {
+        RequestQueryStats stats = new RequestQueryStats();
+        CURRENT.set(stats);
+        return stats;
+    }
+
+    public static RequestQueryStats current() {
+        return CURRENT.get();
+    }
+
+    public static void end() {
+        CURRENT.remove();
+    }
+
+    void recordCommand(String shape) {
+        commands++;
+        shapes.merge(shape, 1, Integer::sum);
+    }
+
+    void recordReply(long replyDocuments, long replyBytes) {
+        documents += replyDocuments;
+        bytes += replyBytes;
+    }
+
+    // The most repeated command shape and its count; the same shape many times is the N+1 signature
+    public Map.Entry<String, Integer> mostRepeatedShape() {
+        Map.Entry<String, Integer> top = null;
+        for (Map.Entry<String, Integer> entry : shapes.entrySet()) {
+            if (top == null || entry.getValue() > top.getValue()) {
+                top = entry;
+            }
+        }
+        return top;
+    }
+}
@@ -0,0 +1,103 @@
+package com.ecommerce.ecommerce.recommendation;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Product co-occurrence counts. Product IDs are interned to dense ints once, and each product's row is
+// an IntIntHashMap of companion -> number of orders containing both, so edges carry no objects.
+// Not thread-safe; callers guard it.
+public class CoOccurrenceIndex {
+
+    public record Companion(String productId, int count) {
+    }
+
+    private final int maxBasketSize;
+    private final Map<String, Integer> ids = new HashMap<>();
+    private String[] products = new String[1024];
+    private IntIntHashMap[] rows = new IntIntHashMap[1024];
+
+    public CoOccurrenceIndex(int maxBasketSize) {
+        this.maxBasketSize = maxBasketSize;
+    }
+
+    public void addBasket(List<String> productIds) {
+        int[] basket = productIds.stream()
+                .distinct()
+                .limit(maxBasketSize) // pairs grow quadratically; huge baskets say little about affinity
+                .mapToInt(this::intern)
+                .toArray();
+
+        for (int a : basket) {
+            for (int b : basket) {
+                if (a != b) {
+                    row(a).addTo(b, 1);
+                }
+            }
+        }
+    }
+
+    public List<Companion> topCompanions(String productId, int limit) {
+        Integer id = ids.get(productId);
+        if (id == null || rows[id] == null || limit <= 0) {
+            return List.of();
+        }
+
+        // Bounded selection into parallel arrays sorted by descending count
+        int[] topIds = new int[limit];
+        int[] topCounts = new int[limit];
+        int[] filled = {0};
+        rows[id].forEach((companion, count) -> {
+            int n = filled[0];
+            if (n == limit && count <= topCounts[n - 1]) {
+                return;
+            }
+            int position = n < limit ? n++ : n - 1;
+            while (position > 0 && topCounts[position - 1] < count) {
+                topIds[position] = topIds[position - 1];
+                topCounts[position] = topCounts[position - 1];
+                position--;
+            }
+            topIds[position] = companion;
+            topCounts[position] = count;
+            filled[0] = n;
+        });
+
+        List<Companion> companions = new ArrayList<>(filled[0]);
+        for (int i = 0; i < filled[0]; i++) {
+            companions.add(new Companion(products[topIds[i]], topCounts[i]));
+        }
+        return companions;
+    }
+
+    public int productCount() {
+        return ids.size();
+    }
+
+    private int intern(String productId) {
+        Integer existing = ids.get(productId);
+        if (existing != null) {
+            return existing;
+        }
+
+        int id = ids.size();
+        if (id == products.length) {
+            products = Arrays.copyOf(products, id * 2);
+            rows = Arrays.copyOf(rows, id * 2);
+        }
+        products[id] = productId;
+        ids.put(productId, id);
+        return id;
+    }
+
+    private IntIntHashMap row(int id) {
+        IntIntHashMap row = rows[id];
+        if (row == null) {
+            row = new IntIntHashMap(8);
+            rows[id] = row;
+        }
+        return row;
+    }
+}
@@ -0,0 +1,33 @@
+package com.ecommerce.ecommerce.reconciliation;
+
+import java.util.Map;
+
+// What the gateway knows about the payment attempts made against one gateway order
+public record GatewayPaymentStatus(State state, String paymentId) {
+
+    public enum State {
+        CAPTURED,    // Money was taken; paymentId is the captured attempt
+        IN_PROGRESS, // An attempt is created or authorized and may still be captured
+        FAILED,      // Every attempt failed
+        NO_ATTEMPT   // The customer never started paying
+    }
+
+    // Razorpay attempt statuses (created, authorized, captured, refunded, failed) keyed by payment ID
+    public static GatewayPaymentStatus fromAttempts(Map<String, String> statusByPaymentId) {
+        if (statusByPaymentId.isEmpty()) {
+            return new GatewayPaymentStatus(State.NO_ATTEMPT, null);
+        }
+
+        boolean inProgress = false;
+        for (Map.Entry<String, String> attempt : statusByPaymentId.entrySet()) {
+            switch (attempt.getValue()) {
+                case "captured", "refunded" -> {
+                    return new GatewayPaymentStatus(State.CAPTURED, attempt.getKey());
+                }
+                case "failed" -> { }
+                default -> inProgress = true;
+            }
+        }
+        return new GatewayPaymentStatus(inProgress ? State.IN_PROGRESS : State.FAILED, null);
+    }
+}
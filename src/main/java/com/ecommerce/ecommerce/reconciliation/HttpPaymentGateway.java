@@ -0,0 +1,53 @@
+package com.ecommerce.ecommerce.reconciliation;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestTemplate;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// Calls GET {url}/v1/orders/{id}/payments directly, in the shape of Razorpay's REST API. Point it at a
+// local stub (or the mock payment service) to run reconciliation without the real gateway.
+@Component
+@ConditionalOnProperty(name = "payments.reconciliation.gateway", havingValue = "http")
+public class HttpPaymentGateway implements PaymentGateway {
+
+    private final RestTemplate restTemplate;
+    private final String baseUrl;
+    private final String keyId;
+    private final String keySecret;
+
+    public HttpPaymentGateway(RestTemplate restTemplate,
+                              @Value("${payments.reconciliation.gateway-url}") String baseUrl,
+                              @Value("${razorpay.key.id}") String keyId,
+                              @Value("${razorpay.key.secret}") String keySecret) {
+        this.restTemplate = restTemplate;
+        this.baseUrl = baseUrl;
+        this.keyId = keyId;
+        this.keySecret = keySecret;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public GatewayPaymentStatus fetchStatus(String gatewayOrderId) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setBasicAuth(keyId, keySecret);
+        Map<String, Object> body = restTemplate.exchange(baseUrl + "/v1/orders/{id}/payments", HttpMethod.GET,
+                new HttpEntity<>(headers), Map.class, gatewayOrderId).getBody();
+
+        Map<String, String> attempts = new LinkedHashMap<>();
+        if (body != null && body.get("items") instanceof List<?> items) {
+            for (Object item : items) {
+                Map<String, Object> payment = (Map<String, Object>) item;
+                attempts.put((String) payment.get("id"), (String) payment.get("status"));
+            }
+        }
+        return GatewayPaymentStatus.fromAttempts(attempts);
+    }
+}
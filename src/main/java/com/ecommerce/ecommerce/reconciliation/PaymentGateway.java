@@ -0,0 +1,7 @@
+package com.ecommerce.ecommerce.reconciliation;
+
+// Read-only view of the payment gateway used by reconciliation
+public interface PaymentGateway {
+
+    GatewayPaymentStatus fetchStatus(String gatewayOrderId);
+}
@@ -0,0 +1,33 @@
+package com.ecommerce.ecommerce.reconciliation;
+
+import com.razorpay.Payment;
+import com.razorpay.RazorpayClient;
+import com.razorpay.RazorpayException;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "payments.reconciliation.gateway", havingValue = "razorpay", matchIfMissing = true)
+public class RazorpayPaymentGateway implements PaymentGateway {
+
+    private final ObjectProvider<RazorpayClient> razorpayClient;
+
+    @Override
+    public GatewayPaymentStatus fetchStatus(String gatewayOrderId) {
+        try {
+            Map<String, String> attempts = new LinkedHashMap<>();
+            for (Payment payment : razorpayClient.getObject().orders.fetchPayments(gatewayOrderId)) {
+                attempts.put(payment.get("id"), payment.get("status"));
+            }
+            return GatewayPaymentStatus.fromAttempts(attempts);
+        } catch (RazorpayException e) {
+            throw new RuntimeException("Failed to fetch Razorpay payments for order " + gatewayOrderId + ": " + e.getMessage(), e);
+        }
+    }
+}
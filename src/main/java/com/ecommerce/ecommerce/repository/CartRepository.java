@@ -0,0 +1,9 @@
+package com.ecommerce.ecommerce.repository;
+
+import com.ecommerce.ecommerce.model.Cart;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface CartRepository extends MongoRepository<Cart, String> {
+}
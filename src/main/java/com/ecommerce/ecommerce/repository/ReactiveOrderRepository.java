@@ -0,0 +1,11 @@
+package com.ecommerce.ecommerce.repository;
+
+import com.ecommerce.ecommerce.model.Order;
+import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+
+@Repository
+public interface ReactiveOrderRepository extends ReactiveMongoRepository<Order, String> {
+    Flux<Order> findByUserId(String userId);
+}
@@ -0,0 +1,11 @@
+package com.ecommerce.ecommerce.repository;
+
+import com.ecommerce.ecommerce.model.Payment;
+import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Mono;
+
+@Repository
+public interface ReactivePaymentRepository extends ReactiveMongoRepository<Payment, String> {
+    Mono<Payment> findByOrderId(String orderId);
+}
@@ -0,0 +1,9 @@
+package com.ecommerce.ecommerce.repository;
+
+import com.ecommerce.ecommerce.model.Product;
+import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface ReactiveProductRepository extends ReactiveMongoRepository<Product, String> {
+}
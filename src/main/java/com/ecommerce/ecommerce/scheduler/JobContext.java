@@ -0,0 +1,62 @@
+package com.ecommerce.ecommerce.scheduler;
+
+import com.ecommerce.ecommerce.exception.LeaseLostException;
+import lombok.Getter;
+import org.bson.types.ObjectId;
+import org.springframework.data.mongodb.core.query.Criteria;
+
+import java.time.Instant;
+import java.util.function.BooleanSupplier;
+
+// What a job needs to know about the lease it is running under
+@Getter
+public class JobContext {
+
+    private final String jobName;
+    private final int partition;
+    private final int partitionCount;
+    private final long fencingToken;
+    private final BooleanSupplier leaseCheck;
+
+    public JobContext(String jobName, int partition, int partitionCount, long fencingToken, BooleanSupplier leaseCheck) {
+        this.jobName = jobName;
+        this.partition = partition;
+        this.partitionCount = partitionCount;
+        this.fencingToken = fencingToken;
+        this.leaseCheck = leaseCheck;
+    }
+
+    // This partition's contiguous range of ObjectId _ids. [from, to) is cut into equal time slices by the
+    // timestamp an ObjectId starts with; the first and last slices are open-ended and _ids that are not
+    // ObjectIds belong to partition 0, so for the same bounds every document has exactly one owner. Nodes
+    // must derive the bounds the same way, e.g. from a clock rounded to the job interval. Matches every
+    // document when there is a single partition.
+    public Criteria ownedIdRange(Instant from, Instant to) {
+        if (partitionCount == 1) {
+            return new Criteria();
+        }
+        long span = Math.max(0, to.getEpochSecond() - from.getEpochSecond());
+        Criteria id = Criteria.where("_id");
+        if (partition > 0) {
+            id.gte(sliceStart(from, span, partition));
+        }
+        if (partition < partitionCount - 1) {
+            id.lt(sliceStart(from, span, partition + 1));
+        }
+        return partition == 0
+                ? new Criteria().orOperator(Criteria.where("_id").not().type(7), id) // 7 is the BSON ObjectId type
+                : id;
+    }
+
+    private ObjectId sliceStart(Instant from, long span, int slice) {
+        long seconds = from.getEpochSecond() + span * slice / partitionCount;
+        return new ObjectId(String.format("%08x%016x", seconds, 0));
+    }
+
+    // Long-running jobs call this between batches and stop as soon as another node has taken over
+    public void checkLease() {
+        if (!leaseCheck.getAsBoolean()) {
+            throw new LeaseLostException("Lease lost for " + jobName + ":" + partition + " (token " + fencingToken + ")");
+        }
+    }
+}
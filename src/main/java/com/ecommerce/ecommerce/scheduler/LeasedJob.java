@@ -0,0 +1,23 @@
+package com.ecommerce.ecommerce.scheduler;
+
+import java.time.Duration;
+
+// Periodic work that must run on exactly one node per partition. Implementations are picked up by
+// LeaseSchedulerService; each partition is leased to one node at a time and run every interval().
+public interface LeasedJob {
+
+    String jobName();
+
+    Duration interval();
+
+    // Partitions are spread over live nodes, so a job with more partitions scales out horizontally
+    default int partitions() {
+        return 1;
+    }
+
+    default boolean isEnabled() {
+        return true;
+    }
+
+    void run(JobContext context);
+}
@@ -0,0 +1,31 @@
+package com.ecommerce.ecommerce.search;
+
+import com.ecommerce.ecommerce.trending.CountMinSketch;
+
+// TinyLFU admission policy. Every lookup is recorded in a Count-Min sketch that is halved after a sample
+// of 10x the cache capacity, so frequencies reflect recent traffic. When the cache is full, a new key
+// only replaces the eviction victim if it has been requested more often, which keeps one-off queries
+// from flushing popular ones.
+public class TinyLfuAdmission {
+
+    private final CountMinSketch sketch;
+    private final int sampleSize;
+    private int recorded;
+
+    public TinyLfuAdmission(int capacity) {
+        this.sketch = new CountMinSketch(4, Math.max(64, Integer.highestOneBit(capacity) * 8));
+        this.sampleSize = Math.max(100, capacity * 10);
+    }
+
+    public synchronized void record(String key) {
+        sketch.add(key, 1);
+        if (++recorded >= sampleSize) {
+            sketch.halve();
+            recorded /= 2;
+        }
+    }
+
+    public synchronized boolean admit(String candidate, String victim) {
+        return sketch.estimate(candidate) > sketch.estimate(victim);
+    }
+}
@@ -0,0 +1,148 @@
+package com.ecommerce.ecommerce.service;
+
+import com.ecommerce.ecommerce.admission.AdaptiveConcurrencyLimiter;
+import com.ecommerce.ecommerce.admission.TokenBucket;
+import com.ecommerce.ecommerce.exception.OverloadedException;
+import com.ecommerce.ecommerce.exception.RateLimitedException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Gatekeeper for the checkout endpoints. A request needs a slot under the global adaptive limit and a
+// token from the user's bucket; otherwise it is rejected immediately instead of queueing. The slot is
+// taken first, so a request shed for overload does not spend the user's token.
+@Service
+@Slf4j
+public class AdmissionControlService {
+
+    private final Map<String, TokenBucket> userBuckets = new ConcurrentHashMap<>();
+    private final AtomicLong lastEvictionNanos = new AtomicLong(System.nanoTime());
+    private volatile TokenBucket overflowBucket;
+    private final AdaptiveConcurrencyLimiter limiter;
+    private final Counter rateLimited;
+    private final Counter shed;
+
+    @Value("${admission.user.capacity:10}")
+    private int userCapacity;
+
+    @Value("${admission.user.refill-per-second:2}")
+    private double userRefillPerSecond;
+
+    @Value("${admission.user.max-tracked:100000}")
+    private int maxTrackedUsers;
+
+    @Value("${admission.retry-after-seconds:1}")
+    private long overloadRetryAfterSeconds;
+
+    public AdmissionControlService(
+            MeterRegistry meterRegistry,
+            @Value("${admission.limit.initial:50}") int initialLimit,
+            @Value("${admission.limit.min:4}") int minLimit,
+            @Value("${admission.limit.max:400}") int maxLimit,
+            @Value("${admission.limit.target-latency-ms:250}") long targetLatencyMillis,
+            @Value("${admission.limit.backoff-ratio:0.9}") double backoffRatio) {
+        this.limiter = new AdaptiveConcurrencyLimiter(initialLimit, minLimit, maxLimit,
+                TimeUnit.MILLISECONDS.toNanos(targetLatencyMillis), backoffRatio);
+        this.rateLimited = meterRegistry.counter("admission.rejected", "reason", "rate_limited");
+        this.shed = meterRegistry.counter("admission.rejected", "reason", "overloaded");
+        Gauge.builder("admission.limit", limiter, AdaptiveConcurrencyLimiter::getLimit).register(meterRegistry);
+        Gauge.builder("admission.in_flight", limiter, AdaptiveConcurrencyLimiter::getInFlight).register(meterRegistry);
+    }
+
+    public Permit admit(String userId) {
+        if (!limiter.tryAcquire()) {
+            shed.increment();
+            log.warn("Shedding request for user {}: {} requests in flight at limit {}",
+                    userId, limiter.getInFlight(), limiter.getLimit());
+            throw new OverloadedException("Server is over capacity, please retry", overloadRetryAfterSeconds);
+        }
+        long startNanos = System.nanoTime();
+
+        TokenBucket bucket = bucketFor(userId);
+        if (!bucket.tryAcquire()) {
+            limiter.releaseUnsampled();
+            rateLimited.increment();
+            throw new RateLimitedException("Too many requests for user: " + userId,
+                    Math.max(1, bucket.secondsUntilNextToken()));
+        }
+
+        return new Permit(startNanos);
+    }
+
+    private TokenBucket bucketFor(String userId) {
+        TokenBucket bucket = userBuckets.get(userId);
+        if (bucket != null) {
+            return bucket;
+        }
+        if (userBuckets.size() >= maxTrackedUsers && !evictIdleBuckets()) {
+            // Still full of active users: untracked users share one bucket until space frees up, which
+            // keeps memory bounded without letting new users through unlimited
+            return overflowBucket();
+        }
+        return userBuckets.computeIfAbsent(userId, id -> new TokenBucket(userCapacity, userRefillPerSecond));
+    }
+
+    // A bucket idle long enough to have refilled completely behaves exactly like a new one. The scan is
+    // O(tracked users), so it runs at most once per refill period and on one thread; returns whether
+    // there is room afterwards.
+    private boolean evictIdleBuckets() {
+        long fullRefillNanos = fullRefillNanos();
+        long now = System.nanoTime();
+        long last = lastEvictionNanos.get();
+        if (now - last >= fullRefillNanos && lastEvictionNanos.compareAndSet(last, now)) {
+            userBuckets.values().removeIf(bucket -> now - bucket.getLastUsedNanos() > fullRefillNanos);
+        }
+        return userBuckets.size() < maxTrackedUsers;
+    }
+
+    private TokenBucket overflowBucket() {
+        TokenBucket bucket = overflowBucket;
+        if (bucket == null) {
+            synchronized (this) {
+                bucket = overflowBucket;
+                if (bucket == null) {
+                    bucket = new TokenBucket(userCapacity, userRefillPerSecond);
+                    overflowBucket = bucket;
+                }
+            }
+        }
+        return bucket;
+    }
+
+    private long fullRefillNanos() {
+        return (long) (userCapacity / userRefillPerSecond * 1_000_000_000d);
+    }
+
+    // Call succeeded() once the request has completed normally. Successes always feed the limiter's latency
+    // samples; failures only when they were slow (timeouts, errors after a long wait), so fast failures do
+    // not push the limit up
+    public class Permit implements AutoCloseable {
+        private final long startNanos;
+        private boolean succeeded;
+        private boolean released;
+
+        private Permit(long startNanos) {
+            this.startNanos = startNanos;
+        }
+
+        public void succeeded() {
+            succeeded = true;
+        }
+
+        @Override
+        public void close() {
+            if (!released) {
+                released = true;
+                limiter.release(startNanos, succeeded);
+            }
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package com.ecommerce.ecommerce.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+// Local fan-out point for cache invalidations. In-process caches subscribe per collection; the change
+// stream watcher (and local writers) publish document IDs that changed anywhere in the cluster.
+@Component
+@Slf4j
+public class CacheInvalidationBus {
+
+    public interface Listener {
+        void invalidate(String id);
+
+        void invalidateAll();
+    }
+
+    private final Map<String, List<Listener>> listeners = new ConcurrentHashMap<>();
+
+    public void subscribe(String collection, Listener listener) {
+        listeners.computeIfAbsent(collection, c -> new CopyOnWriteArrayList<>()).add(listener);
+    }
+
+    public void invalidate(String collection, String id) {
+        for (Listener listener : listeners.getOrDefault(collection, List.of())) {
+            listener.invalidate(id);
+        }
+    }
+
+    public void invalidateAll(String collection) {
+        log.info("Invalidating all cached entries for collection: {}", collection);
+        for (Listener listener : listeners.getOrDefault(collection, List.of())) {
+            listener.invalidateAll();
+        }
+    }
+}
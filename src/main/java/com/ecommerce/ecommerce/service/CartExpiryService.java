@@ -0,0 +1,113 @@
+package com.ecommerce.ecommerce.service;
+
+import com.ecommerce.ecommerce.model.Cart;
+import com.ecommerce.ecommerce.scheduler.JobContext;
+import com.ecommerce.ecommerce.scheduler.LeasedJob;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+// Carts are only removed by a successful checkout, so abandoned ones would pile up forever. Carts not
+// written for 'after' are deleted in bounded batches on the updatedAt index. A sweeper rather than a TTL
+// index, so the idle period can change without rebuilding the index and expiries can be counted.
+// Runs as a single-partition leased job: carts are keyed by user id, which says nothing about idleness,
+// so a key-range slice would still scan the whole updatedAt index.
+@Service
+@Slf4j
+public class CartExpiryService implements LeasedJob {
+
+    private final MongoTemplate mongoTemplate;
+    private final Counter expired;
+
+    @Value("${cart.expiry.enabled:true}")
+    private boolean enabled;
+
+    @Value("${cart.expiry.after:30d}")
+    private Duration expireAfter;
+
+    @Value("${cart.expiry.batch-size:500}")
+    private int batchSize;
+
+    @Value("${cart.expiry.max-batches-per-run:20}")
+    private int maxBatchesPerRun;
+
+    @Value("${cart.expiry.interval-ms:3600000}")
+    private long intervalMillis;
+
+    public CartExpiryService(MongoTemplate mongoTemplate, MeterRegistry meterRegistry) {
+        this.mongoTemplate = mongoTemplate;
+        this.expired = Counter.builder("cart.expired").description("Idle carts deleted by the sweeper").register(meterRegistry);
+        // Collection metadata, not a scan, so it is cheap to read on every scrape
+        Gauge.builder("cart.collection.size", mongoTemplate, template -> template.estimatedCount(Cart.class))
+                .description("Estimated number of cart documents")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public String jobName() {
+        return "cart-expiry";
+    }
+
+    @Override
+    public Duration interval() {
+        return Duration.ofMillis(intervalMillis);
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    @Override
+    public void run(JobContext context) {
+        expire(context::checkLease);
+    }
+
+    // Deletes up to maxBatchesPerRun batches of idle carts; returns the number deleted
+    public long expire() {
+        return expire(() -> { });
+    }
+
+    private long expire(Runnable beforeBatch) {
+        Instant cutoff = Instant.now().minus(expireAfter);
+        long deleted = 0;
+
+        for (int batch = 0; batch < maxBatchesPerRun; batch++) {
+            beforeBatch.run();
+            Query idle = Query.query(Criteria.where("updatedAt").lt(cutoff))
+                    .with(Sort.by("updatedAt"))
+                    .limit(batchSize);
+            idle.fields().include("_id");
+            List<String> userIds = mongoTemplate.find(idle, Cart.class).stream().map(Cart::getUserId).toList();
+            if (userIds.isEmpty()) {
+                break;
+            }
+
+            // The cutoff is checked again in the delete, so a cart written since the read is kept
+            long removed = mongoTemplate.remove(Query.query(Criteria.where("_id").in(userIds).and("updatedAt").lt(cutoff)),
+                    Cart.class).getDeletedCount();
+            deleted += removed;
+            expired.increment(removed);
+
+            if (userIds.size() < batchSize) {
+                break;
+            }
+        }
+
+        if (deleted > 0) {
+            log.info("Expired {} carts idle since before {}", deleted, cutoff);
+        }
+        return deleted;
+    }
+}
@@ -0,0 +1,102 @@
+package com.ecommerce.ecommerce.service;
+
+import com.ecommerce.ecommerce.model.Cart;
+import com.ecommerce.ecommerce.model.CartItem;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
+
+@Service
+@RequiredArgsConstructor
+@Slf4j
+@ConditionalOnProperty(name = "cart.migration.enabled", havingValue = "true")
+public class CartMigrationService implements ApplicationRunner {
+
+    // Legacy cart_items ids applied to a cart whose batch is not yet deleted from cart_items
+    private static final String MIGRATED_IDS = "migratedItemIds";
+
+    private final MongoTemplate mongoTemplate;
+
+    @Value("${cart.migration.batch-size:500}")
+    private int batchSize;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        migrate();
+    }
+
+    public long migrate() {
+        log.info("Migrating cart_items into carts in batches of {}", batchSize);
+
+        long migrated = 0;
+        List<CartItem> batch = new ArrayList<>(batchSize);
+
+        try (Stream<CartItem> legacyItems = mongoTemplate.stream(new Query(), CartItem.class)) {
+            for (CartItem item : (Iterable<CartItem>) legacyItems::iterator) {
+                batch.add(item);
+                if (batch.size() >= batchSize) {
+                    migrated += flush(batch);
+                }
+            }
+        }
+        migrated += flush(batch);
+
+        log.info("Cart migration finished. Migrated {} cart lines", migrated);
+        return migrated;
+    }
+
+    // Applies a batch to per-user carts, then deletes it from cart_items. Each line increment also records
+    // the legacy id in the cart and only applies while the id is absent, so a rerun after a crash between
+    // the two writes skips lines already counted. The recorded ids are pulled once the batch is deleted.
+    private int flush(List<CartItem> batch) {
+        if (batch.isEmpty()) {
+            return 0;
+        }
+
+        // Ordered, so each cart exists before its guarded increments run
+        BulkOperations carts = mongoTemplate.bulkOps(BulkOperations.BulkMode.ORDERED, Cart.class);
+        List<String> migratedIds = new ArrayList<>(batch.size());
+        Set<String> userIds = new LinkedHashSet<>();
+
+        for (CartItem item : batch) {
+            if (userIds.add(item.getUserId())) {
+                carts.upsert(Query.query(Criteria.where("_id").is(item.getUserId())),
+                        new Update().setOnInsert("lines", new Document()));
+            }
+            String linePath = "lines." + item.getProductId();
+            carts.updateOne(
+                    Query.query(Criteria.where("_id").is(item.getUserId()).and(MIGRATED_IDS).ne(item.getId())),
+                    new Update()
+                            .set(linePath + ".productId", item.getProductId())
+                            .inc(linePath + ".quantity", item.getQuantity())
+                            .addToSet(MIGRATED_IDS, item.getId())
+                            .currentDate("updatedAt"));
+            migratedIds.add(item.getId());
+        }
+
+        carts.execute();
+        mongoTemplate.remove(Query.query(Criteria.where("_id").in(migratedIds)), CartItem.class);
+        mongoTemplate.updateMulti(Query.query(Criteria.where("_id").in(userIds)),
+                new Update().pullAll(MIGRATED_IDS, migratedIds.toArray()), Cart.class);
+
+        int size = batch.size();
+        batch.clear();
+        return size;
+    }
+}
@@ -2,25 +2,37 @@ package com.ecommerce.ecommerce.service;
 
 import com.ecommerce.ecommerce.dto.AddToCartRequest;
 import com.ecommerce.ecommerce.dto.CartItemResponse;
+import com.ecommerce.ecommerce.model.Cart;
 import com.ecommerce.ecommerce.model.CartItem;
+import com.ecommerce.ecommerce.model.CartLine;
 import com.ecommerce.ecommerce.model.Product;
-import com.ecommerce.ecommerce.repository.CartItemRepository;
+import com.ecommerce.ecommerce.repository.CartRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Optional;
+import java.util.Map;
 
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class CartService {
 
-    private final CartItemRepository cartItemRepository;
+    private static final int MAX_UPSERT_ATTEMPTS = 3;
+
+    private final CartRepository cartRepository;
+    private final MongoTemplate mongoTemplate;
     private final ProductService productService;
+    private final TrendingService trendingService;
 
     @Transactional
     public CartItem addToCart(AddToCartRequest request) {
@@ -34,40 +46,53 @@ public class CartService {
             throw new RuntimeException("Insufficient stock. Available: " + product.getStock());
         }
 
-        // Check if item already exists in cart
-        Optional<CartItem> existingItem = cartItemRepository.findByUserIdAndProductId(
-                request.getUserId(), request.getProductId());
-
-        CartItem cartItem;
-        if (existingItem.isPresent()) {
-            // Update quantity
-            cartItem = existingItem.get();
-            int newQuantity = cartItem.getQuantity() + request.getQuantity();
-
-            if (product.getStock() < newQuantity) {
-                throw new RuntimeException("Insufficient stock. Available: " + product.getStock());
+        // Upsert the user's cart and bump the line in one round trip. The quantity guard lives in the
+        // filter: when the cart exists but the line would exceed stock nothing matches, and the upsert
+        // then collides with the existing _id instead of writing.
+        String linePath = "lines." + request.getProductId();
+        Query query = Query.query(Criteria.where("_id").is(request.getUserId())
+                .orOperator(
+                        Criteria.where(linePath + ".quantity").exists(false),
+                        Criteria.where(linePath + ".quantity").lte(product.getStock() - request.getQuantity())));
+        Update update = new Update()
+                .set(linePath + ".productId", request.getProductId())
+                .inc(linePath + ".quantity", request.getQuantity())
+                .currentDate("updatedAt");
+
+        // A duplicate key also comes from two first adds racing to create the cart, so it only means
+        // insufficient stock once the stored line confirms it; otherwise the cart now exists and a retry
+        // goes through the guarded filter
+        Cart cart = null;
+        for (int attempt = 1; cart == null; attempt++) {
+            try {
+                cart = mongoTemplate.findAndModify(query, update,
+                        FindAndModifyOptions.options().upsert(true).returnNew(true), Cart.class);
+            } catch (DuplicateKeyException e) {
+                if (lineQuantity(request.getUserId(), request.getProductId()) + request.getQuantity() > product.getStock()) {
+                    throw new RuntimeException("Insufficient stock. Available: " + product.getStock());
+                }
+                if (attempt == MAX_UPSERT_ATTEMPTS) {
+                    throw new RuntimeException("Cart is being updated concurrently, please retry");
+                }
             }
-
-            cartItem.setQuantity(newQuantity);
-            log.info("Updated cart item quantity to {}", newQuantity);
-        } else {
-            // Create new cart item
-            cartItem = new CartItem();
-            cartItem.setUserId(request.getUserId());
-            cartItem.setProductId(request.getProductId());
-            cartItem.setQuantity(request.getQuantity());
-            log.info("Created new cart item");
         }
 
-        return cartItemRepository.save(cartItem);
+        CartLine line = cart.getLines().get(request.getProductId());
+        log.info("Cart line quantity is now {}", line.getQuantity());
+        trendingService.recordCartAdd(request.getProductId(), request.getQuantity());
+        return toCartItem(cart.getUserId(), line);
     }
 
     public List<CartItemResponse> getCartItems(String userId) {
         log.info("Fetching cart items for user: {}", userId);
 
-        List<CartItem> cartItems = cartItemRepository.findByUserId(userId);
+        List<CartItem> cartItems = getCartItemsByUserId(userId);
         List<CartItemResponse> responses = new ArrayList<>();
 
+        // Fetch product details for all lines in one query
+        Map<String, Product> products = productService.getCatalogProducts(
+                cartItems.stream().map(CartItem::getProductId).toList());
+
         for (CartItem item : cartItems) {
             CartItemResponse response = new CartItemResponse();
             response.setId(item.getId());
@@ -75,11 +100,10 @@ public class CartService {
             response.setProductId(item.getProductId());
             response.setQuantity(item.getQuantity());
 
-            // Fetch product details
-            try {
-                Product product = productService.getProductById(item.getProductId());
+            Product product = products.get(item.getProductId());
+            if (product != null) {
                 response.setProduct(product);
-            } catch (Exception e) {
+            } else {
                 log.warn("Product not found for cart item: {}", item.getProductId());
             }
 
@@ -90,13 +114,31 @@ public class CartService {
     }
 
     public List<CartItem> getCartItemsByUserId(String userId) {
-        return cartItemRepository.findByUserId(userId);
+        List<CartItem> cartItems = new ArrayList<>();
+        cartRepository.findById(userId).ifPresent(cart -> {
+            for (CartLine line : cart.getLines().values()) {
+                cartItems.add(toCartItem(userId, line));
+            }
+        });
+        return cartItems;
     }
 
     @Transactional
     public void clearCart(String userId) {
         log.info("Clearing cart for user: {}", userId);
-        cartItemRepository.deleteByUserId(userId);
+        cartRepository.deleteById(userId);
         log.info("Cart cleared successfully");
     }
+
+    private int lineQuantity(String userId, String productId) {
+        Query line = Query.query(Criteria.where("_id").is(userId));
+        line.fields().include("lines." + productId);
+        Cart cart = mongoTemplate.findOne(line, Cart.class);
+        CartLine current = cart != null ? cart.getLines().get(productId) : null;
+        return current != null && current.getQuantity() != null ? current.getQuantity() : 0;
+    }
+
+    private CartItem toCartItem(String userId, CartLine line) {
+        return new CartItem(userId + ":" + line.getProductId(), userId, line.getProductId(), line.getQuantity());
+    }
 }
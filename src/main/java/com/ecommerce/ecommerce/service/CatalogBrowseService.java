@@ -0,0 +1,211 @@
+package com.ecommerce.ecommerce.service;
+
+import com.ecommerce.ecommerce.dto.ProductBrowseResponse;
+import com.ecommerce.ecommerce.model.Product;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.TypedAggregation;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.Locale;
+
+// Filtered, sorted and paginated catalog browsing. The page is a plain find on the (price, _id) or
+// (name, _id) index that stops after one item past the page, so it costs the page size however deep
+// the client pages. Pages are keyset-based: the token carries the last item's sort value and ID. Facet
+// counts come from a separate aggregation on the first page only.
+@Service
+@Slf4j
+public class CatalogBrowseService {
+
+    private final MongoTemplate mongoTemplate;
+    private final ReadRoutingService readRoutingService;
+    private final List<Double> priceBoundaries;
+
+    @Value("${catalog.browse.default-page-size:24}")
+    private int defaultPageSize;
+
+    @Value("${catalog.browse.max-page-size:100}")
+    private int maxPageSize;
+
+    public CatalogBrowseService(MongoTemplate mongoTemplate, ReadRoutingService readRoutingService,
+                                @Value("${catalog.browse.price-boundaries:0,500,1000,5000,10000,50000}") List<Double> priceBoundaries) {
+        this.mongoTemplate = mongoTemplate;
+        this.readRoutingService = readRoutingService;
+        this.priceBoundaries = List.copyOf(priceBoundaries);
+    }
+
+    public enum BrowseSort {
+        PRICE_ASC("price", Sort.Direction.ASC),
+        PRICE_DESC("price", Sort.Direction.DESC),
+        NAME_ASC("name", Sort.Direction.ASC),
+        NEWEST("_id", Sort.Direction.DESC); // ObjectIds start with their creation time
+
+        private final String field;
+        private final Sort.Direction direction;
+
+        BrowseSort(String field, Sort.Direction direction) {
+            this.field = field;
+            this.direction = direction;
+        }
+
+        public static BrowseSort parse(String value) {
+            try {
+                return valueOf(value.toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Unknown sort: " + value + ". Use price_asc, price_desc, name_asc or newest");
+            }
+        }
+    }
+
+    public ProductBrowseResponse browse(Double minPrice, Double maxPrice, boolean inStockOnly, BrowseSort sort,
+                                        Integer pageSize, String pageToken) {
+        int limit = pageSize == null ? defaultPageSize : Math.clamp(pageSize, 1, maxPageSize);
+        log.info("Browsing products: price {}..{}, inStock {}, sort {}, pageSize {}", minPrice, maxPrice, inStockOnly, sort, limit);
+
+        Criteria filter = new Criteria();
+        if (minPrice != null || maxPrice != null) {
+            Criteria price = filter.and("price");
+            if (minPrice != null) {
+                price.gte(minPrice);
+            }
+            if (maxPrice != null) {
+                price.lte(maxPrice);
+            }
+        }
+        if (inStockOnly) {
+            filter.and("stock").gt(0);
+        }
+
+        Sort order = sort.field.equals("_id")
+                ? Sort.by(sort.direction, "_id")
+                : Sort.by(sort.direction, sort.field).and(Sort.by(sort.direction, "_id"));
+
+        // One extra item tells whether there is a next page
+        Criteria after = after(sort, pageToken);
+        Query page = new Query(after == null ? filter : new Criteria().andOperator(filter, after))
+                .with(order)
+                .limit(limit + 1);
+        List<Product> items = mongoTemplate.find(readRoutingService.route("product-browse", page), Product.class);
+
+        ProductBrowseResponse response = new ProductBrowseResponse();
+        response.setItems(items.size() > limit ? new ArrayList<>(items.subList(0, limit)) : items);
+        if (items.size() > limit) {
+            response.setNextPageToken(encodeToken(sort, items.get(limit - 1)));
+        }
+        if (after == null) {
+            addCounts(response, filter);
+        }
+        return response;
+    }
+
+    // Facet counts for the whole filtered set. They have to read every match, so they are computed for the
+    // first page only; later pages of the same filter leave them null.
+    private void addCounts(ProductBrowseResponse response, Criteria filter) {
+        TypedAggregation<Product> aggregation = Aggregation.newAggregation(Product.class,
+                Aggregation.match(filter),
+                Aggregation.facet(Aggregation.bucket("price")
+                                .withBoundaries(priceBoundaries.toArray())
+                                .withDefaultBucket("over")
+                                .andOutputCount().as("count"))
+                        .as("priceBuckets")
+                        .and(Aggregation.match(Criteria.where("stock").gt(0)), Aggregation.count().as("count"))
+                        .as("inStock")
+                        .and(Aggregation.count().as("count"))
+                        .as("total"))
+                .withOptions(readRoutingService.routeAggregation("product-browse"));
+        Document result = mongoTemplate.aggregate(aggregation, Document.class).getUniqueMappedResult();
+
+        long total = firstCount(result, "total");
+        long inStock = firstCount(result, "inStock");
+        response.setTotal(total);
+        response.setInStock(inStock);
+        response.setOutOfStock(total - inStock);
+
+        List<ProductBrowseResponse.PriceBucket> buckets = new ArrayList<>();
+        if (result != null) {
+            for (Document bucket : result.getList("priceBuckets", Document.class)) {
+                Object lower = bucket.get("_id");
+                if ("over".equals(lower)) {
+                    buckets.add(new ProductBrowseResponse.PriceBucket(priceBoundaries.getLast(), null, count(bucket)));
+                } else {
+                    double min = ((Number) lower).doubleValue();
+                    int index = priceBoundaries.indexOf(min);
+                    buckets.add(new ProductBrowseResponse.PriceBucket(min, priceBoundaries.get(index + 1), count(bucket)));
+                }
+            }
+        }
+        response.setPriceBuckets(buckets);
+    }
+
+    // Keyset condition: strictly after the last item of the previous page in (field, _id) order; null on
+    // the first page
+    private Criteria after(BrowseSort sort, String pageToken) {
+        if (pageToken == null || pageToken.isBlank()) {
+            return null;
+        }
+
+        String[] parts = decodeToken(pageToken);
+        if (!parts[0].equals(sort.name())) {
+            throw new IllegalArgumentException("Page token was issued for sort " + parts[0] + ", not " + sort.name());
+        }
+        ObjectId lastId = new ObjectId(parts[1]);
+        boolean ascending = sort.direction.isAscending();
+
+        if (sort.field.equals("_id")) {
+            return ascending ? Criteria.where("_id").gt(lastId) : Criteria.where("_id").lt(lastId);
+        }
+
+        Object lastValue = sort.field.equals("price") ? (Object) Double.valueOf(parts[2]) : parts[2];
+        Criteria beyondValue = ascending ? Criteria.where(sort.field).gt(lastValue) : Criteria.where(sort.field).lt(lastValue);
+        Criteria beyondId = ascending ? Criteria.where("_id").gt(lastId) : Criteria.where("_id").lt(lastId);
+        return new Criteria().orOperator(beyondValue,
+                new Criteria().andOperator(Criteria.where(sort.field).is(lastValue), beyondId));
+    }
+
+    private static long firstCount(Document result, String facet) {
+        if (result == null) {
+            return 0;
+        }
+        List<Document> counts = result.getList(facet, Document.class);
+        return counts.isEmpty() ? 0 : count(counts.getFirst());
+    }
+
+    private static long count(Document document) {
+        return ((Number) document.get("count")).longValue();
+    }
+
+    private static String encodeToken(BrowseSort sort, Product last) {
+        String value = switch (sort) {
+            case PRICE_ASC, PRICE_DESC -> String.valueOf(last.getPrice());
+            case NAME_ASC -> last.getName();
+            case NEWEST -> "";
+        };
+        String token = sort.name() + "|" + last.getId() + "|" + value;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(token.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String[] decodeToken(String pageToken) {
+        String[] parts;
+        try {
+            // The value goes last so product names may contain '|'
+            parts = new String(Base64.getUrlDecoder().decode(pageToken), StandardCharsets.UTF_8).split("\\|", 3);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid page token");
+        }
+        if (parts.length != 3 || !ObjectId.isValid(parts[1])) {
+            throw new IllegalArgumentException("Invalid page token");
+        }
+        return parts;
+    }
+}
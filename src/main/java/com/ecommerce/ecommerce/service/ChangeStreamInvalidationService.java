@@ -0,0 +1,219 @@
+package com.ecommerce.ecommerce.service;
+
+import com.ecommerce.ecommerce.config.NodeIdentity;
+import com.mongodb.MongoCommandException;
+import com.mongodb.MongoException;
+import com.mongodb.client.ChangeStreamIterable;
+import com.mongodb.client.MongoChangeStreamCursor;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.ReplaceOptions;
+import com.mongodb.client.model.changestream.ChangeStreamDocument;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.BsonDocument;
+import org.bson.BsonValue;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Tails change streams on the watched collections and feeds every change into the local
+// CacheInvalidationBus, so caches on this node see writes made by any other node. Only collections with
+// a subscribed cache are worth a stream; today that is products (ProductJsonCache). Requires a replica set.
+@Service
+@RequiredArgsConstructor
+@Slf4j
+@ConditionalOnProperty(name = "cache.invalidation.change-streams.enabled", havingValue = "true")
+public class ChangeStreamInvalidationService {
+
+    private static final String CHECKPOINT_COLLECTION = "change_stream_checkpoints";
+    private static final int CHANGE_STREAM_HISTORY_LOST = 286;
+
+    private final MongoTemplate mongoTemplate;
+    private final CacheInvalidationBus invalidationBus;
+    private final MeterRegistry meterRegistry;
+    private final NodeIdentity nodeIdentity;
+
+    @Value("${cache.invalidation.collections:products}")
+    private List<String> collections;
+
+    @Value("${cache.invalidation.max-lag-ms:5000}")
+    private long maxLagMillis;
+
+    @Value("${cache.invalidation.checkpoint-interval-ms:1000}")
+    private long checkpointIntervalMillis;
+
+    private final List<Thread> watchers = new ArrayList<>();
+    private volatile boolean running;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        running = true;
+
+        for (String collection : collections) {
+            Thread watcher = new Thread(() -> watch(collection), "change-stream-" + collection);
+            watcher.setDaemon(true);
+            watcher.start();
+            watchers.add(watcher);
+        }
+        log.info("Watching change streams on {} as node {}", collections, nodeIdentity.getNodeId());
+    }
+
+    // Waits for the watchers to exit, so their final checkpoints are saved before shutdown
+    @PreDestroy
+    public void stop() {
+        running = false;
+        for (Thread watcher : watchers) {
+            watcher.interrupt();
+        }
+        try {
+            for (Thread watcher : watchers) {
+                watcher.join(TimeUnit.SECONDS.toMillis(5));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        watchers.clear();
+    }
+
+    private void watch(String collection) {
+        AtomicLong lagMillis = meterRegistry.gauge("cache.invalidation.lag", Tags.of("collection", collection),
+                new AtomicLong());
+        Counter events = meterRegistry.counter("cache.invalidation.events", "collection", collection);
+        Counter flushes = meterRegistry.counter("cache.invalidation.flushes", "collection", collection);
+
+        BsonDocument resumeToken = loadCheckpoint(collection);
+        long lastCheckpoint = System.currentTimeMillis();
+        boolean overLag = false;
+
+        while (running) {
+            ChangeStreamIterable<Document> stream = mongoTemplate.getCollection(collection).watch()
+                    .maxAwaitTime(1, TimeUnit.SECONDS);
+            if (resumeToken != null) {
+                stream = stream.resumeAfter(resumeToken);
+            }
+
+            try (MongoChangeStreamCursor<ChangeStreamDocument<Document>> cursor = stream.cursor()) {
+                while (running) {
+                    ChangeStreamDocument<Document> change = cursor.tryNext();
+
+                    long lag = 0;
+                    if (change != null) {
+                        events.increment();
+                        lag = lagOf(change);
+                        // Every change is applied even while behind, so no write is ever skipped
+                        apply(collection, change);
+                    }
+                    lagMillis.set(lag);
+
+                    // While behind, caches may serve values older than maxLagMillis, so flush when falling
+                    // behind. Entries filled during the lag may already be stale, so flush again on catch-up.
+                    if (lag > maxLagMillis && !overLag) {
+                        log.warn("Change stream on {} is {} ms behind, flushing local caches", collection, lag);
+                        invalidationBus.invalidateAll(collection);
+                        flushes.increment();
+                        overLag = true;
+                    } else if (lag <= maxLagMillis && overLag) {
+                        log.info("Change stream on {} caught up, flushing local caches", collection);
+                        invalidationBus.invalidateAll(collection);
+                        flushes.increment();
+                        overLag = false;
+                    }
+
+                    if (cursor.getResumeToken() != null) {
+                        resumeToken = cursor.getResumeToken();
+                    }
+                    if (System.currentTimeMillis() - lastCheckpoint >= checkpointIntervalMillis && resumeToken != null) {
+                        saveCheckpoint(collection, resumeToken);
+                        lastCheckpoint = System.currentTimeMillis();
+                    }
+                }
+            } catch (MongoCommandException e) {
+                if (e.getErrorCode() == CHANGE_STREAM_HISTORY_LOST) {
+                    // The oplog rolled past our checkpoint, so changes were missed
+                    log.warn("Resume token for {} is no longer in the oplog, restarting from now", collection);
+                    resumeToken = null;
+                    invalidationBus.invalidateAll(collection);
+                    flushes.increment();
+                } else {
+                    backOff(collection, e);
+                }
+            } catch (MongoException e) {
+                backOff(collection, e);
+            }
+        }
+
+        if (resumeToken != null) {
+            Thread.interrupted(); // stop() interrupts watchers; clear it so the driver runs the final write
+            saveCheckpoint(collection, resumeToken);
+        }
+    }
+
+    private void apply(String collection, ChangeStreamDocument<Document> change) {
+        switch (change.getOperationType()) {
+            case INSERT, UPDATE, REPLACE, DELETE -> invalidationBus.invalidate(collection, idOf(change.getDocumentKey()));
+            default -> invalidationBus.invalidateAll(collection); // drop, rename, invalidate
+        }
+    }
+
+    private long lagOf(ChangeStreamDocument<Document> change) {
+        long eventMillis = change.getWallTime() != null
+                ? change.getWallTime().getValue()
+                : change.getClusterTime().getTime() * 1000L;
+        return Math.max(0, System.currentTimeMillis() - eventMillis);
+    }
+
+    private String idOf(BsonDocument documentKey) {
+        BsonValue id = documentKey.get("_id");
+        if (id.isObjectId()) {
+            return id.asObjectId().getValue().toHexString();
+        }
+        return id.isString() ? id.asString().getValue() : id.toString();
+    }
+
+    private BsonDocument loadCheckpoint(String collection) {
+        Document checkpoint = mongoTemplate.getCollection(CHECKPOINT_COLLECTION)
+                .find(Filters.eq("_id", checkpointId(collection)))
+                .first();
+        if (checkpoint == null) {
+            return null;
+        }
+        log.info("Resuming change stream on {} from checkpoint", collection);
+        return checkpoint.get("token", Document.class).toBsonDocument();
+    }
+
+    private void saveCheckpoint(String collection, BsonDocument resumeToken) {
+        Document checkpoint = new Document("_id", checkpointId(collection))
+                .append("token", Document.parse(resumeToken.toJson()))
+                .append("updatedAt", new Date());
+        mongoTemplate.getCollection(CHECKPOINT_COLLECTION)
+                .replaceOne(Filters.eq("_id", checkpointId(collection)), checkpoint, new ReplaceOptions().upsert(true));
+    }
+
+    private String checkpointId(String collection) {
+        return nodeIdentity.getNodeId() + ":" + collection;
+    }
+
+    private void backOff(String collection, MongoException e) {
+        log.warn("Change stream on {} failed, retrying: {}", collection, e.getMessage());
+        try {
+            TimeUnit.SECONDS.sleep(1);
+        } catch (InterruptedException interrupted) {
+            Thread.currentThread().interrupt();
+            running = false;
+        }
+    }
+}
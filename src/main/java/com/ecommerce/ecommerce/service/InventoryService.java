@@ -0,0 +1,136 @@
+package com.ecommerce.ecommerce.service;
+
+import com.ecommerce.ecommerce.dto.CreateWarehouseRequest;
+import com.ecommerce.ecommerce.exception.ResourceNotFoundException;
+import com.ecommerce.ecommerce.inventory.Allocation;
+import com.ecommerce.ecommerce.inventory.InventoryAllocator;
+import com.ecommerce.ecommerce.model.OrderItem;
+import com.ecommerce.ecommerce.model.Product;
+import com.ecommerce.ecommerce.model.Warehouse;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.AggregationOperation;
+import org.springframework.data.mongodb.core.aggregation.AggregationUpdate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Service;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+// Per-warehouse stock and the allocation step of checkout. Warehouses are few and rarely change, so the
+// active ones are held in memory and reloaded every refresh-ms; allocation itself never touches Mongo.
+@Service
+@Slf4j
+public class InventoryService {
+
+    private static final Pattern WAREHOUSE_ID = Pattern.compile("[A-Za-z0-9_-]{1,32}"); // Used as a field name
+    private static final double EARTH_RADIUS_KM = 6371;
+
+    private final MongoTemplate mongoTemplate;
+    private final CacheInvalidationBus invalidationBus;
+    private final Timer allocationTimer;
+    private final DistributionSummary shipmentsPerOrder;
+
+    @Value("${inventory.warehouse-refresh-ms:30000}")
+    private long warehouseRefreshMillis;
+
+    private volatile List<Warehouse> warehouses;
+    private volatile long warehousesLoadedAt;
+
+    public InventoryService(MongoTemplate mongoTemplate, CacheInvalidationBus invalidationBus, MeterRegistry meterRegistry) {
+        this.mongoTemplate = mongoTemplate;
+        this.invalidationBus = invalidationBus;
+        this.allocationTimer = Timer.builder("inventory.allocation").register(meterRegistry);
+        this.shipmentsPerOrder = DistributionSummary.builder("inventory.shipments_per_order").register(meterRegistry);
+    }
+
+    public Warehouse createWarehouse(CreateWarehouseRequest request) {
+        if (!WAREHOUSE_ID.matcher(request.getId()).matches()) {
+            throw new IllegalArgumentException("Warehouse ID may only contain letters, digits, '-' and '_'");
+        }
+        Warehouse warehouse = mongoTemplate.insert(new Warehouse(request.getId(), request.getName(),
+                request.getLatitude(), request.getLongitude(), true));
+        warehouses = null; // Reload on next use
+        log.info("Warehouse {} created", warehouse.getId());
+        return warehouse;
+    }
+
+    public List<Warehouse> getWarehouses() {
+        return mongoTemplate.findAll(Warehouse.class);
+    }
+
+    // Sets one location's stock and moves the total by the same difference in one update, so un-located
+    // stock (the total minus all locations) is kept: stock 50 with nothing located, then A = 10, gives 60
+    public Product setWarehouseStock(String productId, String warehouseId, int quantity) {
+        log.info("Setting stock of product {} at warehouse {} to {}", productId, warehouseId, quantity);
+        if (mongoTemplate.findById(warehouseId, Warehouse.class) == null) {
+            throw new ResourceNotFoundException("Warehouse not found with ID: " + warehouseId);
+        }
+
+        String location = "stockByWarehouse." + warehouseId;
+        // Both fields are computed from the document as it was before this stage
+        AggregationOperation setLocation = context -> new Document("$set", new Document()
+                .append("stock", new Document("$add", List.of(
+                        new Document("$ifNull", List.of("$stock", 0)),
+                        new Document("$subtract", List.of(quantity, new Document("$ifNull", List.of("$" + location, 0)))))))
+                .append(location, quantity)
+                .append("version", new Document("$add", List.of(new Document("$ifNull", List.of("$version", 0L)), 1L))));
+        long matched = mongoTemplate.update(Product.class)
+                .matching(Query.query(Criteria.where("_id").is(productId)))
+                .apply(AggregationUpdate.from(List.of(setLocation)))
+                .first()
+                .getMatchedCount();
+        if (matched == 0) {
+            throw new ResourceNotFoundException("Product not found with ID: " + productId);
+        }
+
+        invalidationBus.invalidate("products", productId);
+        return mongoTemplate.findById(productId, Product.class);
+    }
+
+    // Splits the order across active warehouses, nearest to the delivery location first when one is given
+    public Allocation allocate(List<OrderItem> items, Map<String, Product> products, Double latitude, Double longitude) {
+        List<String> warehouseIds = activeWarehouses().stream()
+                .sorted(Comparator.comparingDouble(warehouse -> distanceKm(warehouse, latitude, longitude)))
+                .map(Warehouse::getId)
+                .toList();
+
+        long started = System.nanoTime();
+        Allocation allocation = InventoryAllocator.allocate(items, products, warehouseIds);
+        allocationTimer.record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+        shipmentsPerOrder.record(allocation.shipments().size());
+        return allocation;
+    }
+
+    private List<Warehouse> activeWarehouses() {
+        List<Warehouse> current = warehouses;
+        if (current == null || System.currentTimeMillis() - warehousesLoadedAt > warehouseRefreshMillis) {
+            current = mongoTemplate.find(Query.query(Criteria.where("active").is(true)), Warehouse.class);
+            warehouses = current;
+            warehousesLoadedAt = System.currentTimeMillis();
+        }
+        return current;
+    }
+
+    // Great-circle distance; 0 for every warehouse when either side has no coordinates, keeping stored order
+    private static double distanceKm(Warehouse warehouse, Double latitude, Double longitude) {
+        if (latitude == null || longitude == null || warehouse.getLatitude() == null || warehouse.getLongitude() == null) {
+            return 0;
+        }
+        double dLat = Math.toRadians(warehouse.getLatitude() - latitude);
+        double dLon = Math.toRadians(warehouse.getLongitude() - longitude);
+        double a = Math.sin(dLat / 2) * Math.sin(dLat / 2)
+                + Math.cos(Math.toRadians(latitude)) * Math.cos(Math.toRadians(warehouse.getLatitude()))
+                * Math.sin(dLon / 2) * Math.sin(dLon / 2);
+        return 2 * EARTH_RADIUS_KM * Math.asin(Math.sqrt(a));
+    }
+}
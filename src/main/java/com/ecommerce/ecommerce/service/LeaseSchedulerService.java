@@ -0,0 +1,286 @@
+package com.ecommerce.ecommerce.service;
+
+import com.ecommerce.ecommerce.config.NodeIdentity;
+import com.ecommerce.ecommerce.exception.LeaseLostException;
+import com.ecommerce.ecommerce.model.JobLease;
+import com.ecommerce.ecommerce.model.SchedulerNode;
+import com.ecommerce.ecommerce.scheduler.JobContext;
+import com.ecommerce.ecommerce.scheduler.LeasedJob;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Runs LeasedJob partitions on exactly one node at a time. Each partition is a lease document in
+// job_leases; the holder renews it on every heartbeat and a node that stops heartbeating loses its
+// leases once they expire. Takeovers increment the fencing token, so a paused former holder can tell
+// it has been replaced. Partitions are balanced over the nodes heartbeating into scheduler_nodes.
+@Service
+@Slf4j
+public class LeaseSchedulerService {
+
+    private final MongoTemplate mongoTemplate;
+    private final ObjectProvider<LeasedJob> jobProvider;
+    private final String nodeId;
+    private final Map<String, Held> held = new ConcurrentHashMap<>();
+
+    @Value("${scheduler.enabled:true}")
+    private boolean enabled;
+
+    @Value("${scheduler.lease-ttl-ms:15000}")
+    private long leaseTtlMillis;
+
+    @Value("${scheduler.heartbeat-ms:5000}")
+    private long heartbeatMillis;
+
+    @Value("${scheduler.tick-ms:250}")
+    private long tickMillis;
+
+    @Value("${scheduler.worker-threads:2}")
+    private int workerThreads;
+
+    private List<LeasedJob> jobs = List.of();
+    private ScheduledExecutorService scheduler;
+    private ExecutorService workers;
+
+    public LeaseSchedulerService(MongoTemplate mongoTemplate, ObjectProvider<LeasedJob> jobProvider,
+                                 NodeIdentity nodeIdentity, MeterRegistry meterRegistry) {
+        this.mongoTemplate = mongoTemplate;
+        this.jobProvider = jobProvider;
+        this.nodeId = nodeIdentity.getNodeId();
+        Gauge.builder("scheduler.leases.held", held, Map::size).register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        jobs = jobProvider.orderedStream().filter(LeasedJob::isEnabled).toList();
+        if (jobs.isEmpty()) {
+            return;
+        }
+
+        AtomicInteger workerCount = new AtomicInteger();
+        workers = Executors.newFixedThreadPool(workerThreads, runnable -> {
+            Thread thread = new Thread(runnable, "leased-job-" + workerCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "lease-scheduler");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::heartbeatQuietly, 0, heartbeatMillis, TimeUnit.MILLISECONDS);
+        scheduler.scheduleWithFixedDelay(this::dispatch, tickMillis, tickMillis, TimeUnit.MILLISECONDS);
+        log.info("Lease scheduler started on node {} with jobs {}", nodeId, jobs.stream().map(LeasedJob::jobName).toList());
+    }
+
+    @PreDestroy
+    void stop() {
+        if (scheduler == null) {
+            return;
+        }
+        scheduler.shutdownNow();
+        workers.shutdownNow();
+
+        // Hand leases back right away so another node picks them up without waiting for expiry
+        try {
+            for (Held lease : held.values()) {
+                release(lease);
+            }
+            mongoTemplate.remove(Query.query(Criteria.where("_id").is(nodeId)), SchedulerNode.class);
+        } catch (RuntimeException e) {
+            log.warn("Failed to release leases on shutdown", e);
+        }
+        held.clear();
+    }
+
+    // Renews held leases, gives up partitions above this node's fair share and takes free ones below it
+    void heartbeat() {
+        Instant now = Instant.now();
+        Instant expiresAt = now.plusMillis(leaseTtlMillis);
+
+        mongoTemplate.upsert(Query.query(Criteria.where("_id").is(nodeId)),
+                new Update().set("heartbeatAt", now).set("expiresAt", expiresAt),
+                SchedulerNode.class);
+        long liveNodes = Math.max(1, mongoTemplate.count(
+                Query.query(Criteria.where("expiresAt").gt(now)), SchedulerNode.class));
+
+        for (LeasedJob job : jobs) {
+            int fairShare = (int) Math.ceilDiv(job.partitions(), liveNodes);
+            List<Held> mine = new ArrayList<>();
+
+            for (Held lease : held.values()) {
+                if (lease.job != job) {
+                    continue;
+                }
+                if (renew(lease, now, expiresAt)) {
+                    mine.add(lease);
+                } else {
+                    held.remove(lease.id);
+                    log.warn("Lost lease {} (token {})", lease.id, lease.token);
+                }
+            }
+
+            // Too many: release idle partitions so newly joined nodes can take them
+            for (int i = mine.size() - 1; i >= 0 && mine.size() > fairShare; i--) {
+                Held lease = mine.get(i);
+                if (!lease.running) {
+                    release(lease);
+                    held.remove(lease.id);
+                    mine.remove(i);
+                }
+            }
+
+            // Too few: pick up partitions whose lease is free or expired
+            for (int partition = 0; partition < job.partitions() && mine.size() < fairShare; partition++) {
+                String id = leaseId(job, partition);
+                if (!held.containsKey(id)) {
+                    Held acquired = tryAcquire(job, partition, now, expiresAt);
+                    if (acquired != null) {
+                        mine.add(acquired);
+                    }
+                }
+            }
+        }
+    }
+
+    private boolean renew(Held lease, Instant now, Instant expiresAt) {
+        long matched = mongoTemplate.updateFirst(ownedBy(lease),
+                new Update().set("expiresAt", expiresAt).set("heartbeatAt", now),
+                JobLease.class).getMatchedCount();
+        if (matched > 0) {
+            lease.expiresAt = expiresAt;
+            return true;
+        }
+        return false;
+    }
+
+    private Held tryAcquire(LeasedJob job, int partition, Instant now, Instant expiresAt) {
+        String id = leaseId(job, partition);
+        mongoTemplate.upsert(Query.query(Criteria.where("_id").is(id)),
+                new Update().setOnInsert("job", job.jobName())
+                        .setOnInsert("partition", partition)
+                        .setOnInsert("fencingToken", 0L)
+                        .setOnInsert("expiresAt", Instant.EPOCH),
+                JobLease.class);
+
+        JobLease lease = mongoTemplate.findAndModify(
+                Query.query(Criteria.where("_id").is(id).and("expiresAt").lte(now)),
+                new Update().set("owner", nodeId)
+                        .set("expiresAt", expiresAt)
+                        .set("heartbeatAt", now)
+                        .inc("fencingToken", 1),
+                FindAndModifyOptions.options().returnNew(true),
+                JobLease.class);
+        if (lease == null) {
+            return null;
+        }
+
+        // Keep the job's cadence across failover instead of running immediately on every takeover
+        Instant nextRunAt = lease.getLastRunAt() == null ? now : lease.getLastRunAt().plus(job.interval());
+        Held acquired = new Held(id, job, partition, lease.getFencingToken(), expiresAt, nextRunAt);
+        held.put(id, acquired);
+        log.info("Acquired lease {} (token {})", id, acquired.token);
+        return acquired;
+    }
+
+    private void release(Held lease) {
+        mongoTemplate.updateFirst(ownedBy(lease), new Update().set("expiresAt", Instant.EPOCH), JobLease.class);
+    }
+
+    private void dispatch() {
+        Instant now = Instant.now();
+        for (Held lease : held.values()) {
+            if (lease.running || lease.nextRunAt.isAfter(now) || !lease.expiresAt.isAfter(now)) {
+                continue;
+            }
+            lease.running = true;
+            workers.execute(() -> runPartition(lease));
+        }
+    }
+
+    private void runPartition(Held lease) {
+        JobContext context = new JobContext(lease.job.jobName(), lease.partition, lease.job.partitions(), lease.token,
+                () -> isStillHeld(lease));
+        try {
+            lease.job.run(context);
+            // Only the current holder can record a completed run
+            mongoTemplate.updateFirst(ownedBy(lease), new Update().set("lastRunAt", Instant.now()), JobLease.class);
+        } catch (LeaseLostException e) {
+            log.info(e.getMessage());
+        } catch (RuntimeException e) {
+            log.warn("Job {} failed", lease.id, e);
+        } finally {
+            lease.nextRunAt = Instant.now().plus(lease.job.interval());
+            lease.running = false;
+        }
+    }
+
+    private boolean isStillHeld(Held lease) {
+        if (held.get(lease.id) != lease || !lease.expiresAt.isAfter(Instant.now())) {
+            return false;
+        }
+        return mongoTemplate.exists(ownedBy(lease), JobLease.class);
+    }
+
+    private Query ownedBy(Held lease) {
+        return Query.query(Criteria.where("_id").is(lease.id)
+                .and("owner").is(nodeId)
+                .and("fencingToken").is(lease.token));
+    }
+
+    private static String leaseId(LeasedJob job, int partition) {
+        return job.jobName() + ":" + partition;
+    }
+
+    private void heartbeatQuietly() {
+        try {
+            heartbeat();
+        } catch (RuntimeException e) {
+            log.warn("Scheduler heartbeat failed", e);
+        }
+    }
+
+    private static final class Held {
+        private final String id;
+        private final LeasedJob job;
+        private final int partition;
+        private final long token;
+        private volatile Instant expiresAt;
+        private volatile Instant nextRunAt;
+        private volatile boolean running;
+
+        private Held(String id, LeasedJob job, int partition, long token, Instant expiresAt, Instant nextRunAt) {
+            this.id = id;
+            this.job = job;
+            this.partition = partition;
+            this.token = token;
+            this.expiresAt = expiresAt;
+            this.nextRunAt = nextRunAt;
+        }
+    }
+}
@@ -0,0 +1,183 @@
+package com.ecommerce.ecommerce.service;
+
+import com.ecommerce.ecommerce.model.Order;
+import com.ecommerce.ecommerce.model.OrderStatus;
+import com.ecommerce.ecommerce.scheduler.JobContext;
+import com.ecommerce.ecommerce.scheduler.LeasedJob;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndReplaceOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+// Cold tier for orders. Settled orders past the configured age are copied into a zstd-compressed
+// orders_archive collection in bounded batches and then removed from the hot orders collection.
+// Runs as a leased job with one partition per contiguous range of order _ids, so the archive backlog is
+// spread over the live nodes.
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class OrderArchiveService implements LeasedJob {
+
+    public static final String ARCHIVE_COLLECTION = "orders_archive";
+    private static final List<OrderStatus> SETTLED = List.of(OrderStatus.PAID, OrderStatus.FAILED, OrderStatus.CANCELLED);
+
+    private final MongoTemplate mongoTemplate;
+
+    @Value("${orders.archive.enabled:false}")
+    private boolean enabled;
+
+    @Value("${orders.archive.after:90d}")
+    private Duration archiveAfter;
+
+    @Value("${orders.archive.batch-size:500}")
+    private int batchSize;
+
+    @Value("${orders.archive.max-batches-per-run:20}")
+    private int maxBatchesPerRun;
+
+    @Value("${orders.archive.interval-ms:600000}")
+    private long intervalMillis;
+
+    @Value("${orders.archive.partitions:4}")
+    private int partitions;
+
+    private volatile boolean archivePresent; // Only ever goes from false to true
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        ensureArchiveCollection();
+    }
+
+    @Override
+    public String jobName() {
+        return "order-archive";
+    }
+
+    @Override
+    public Duration interval() {
+        return Duration.ofMillis(intervalMillis);
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    @Override
+    public int partitions() {
+        return partitions;
+    }
+
+    // Order _ids carry their creation time, so the candidates of a run lie mostly in the window that aged
+    // past the cutoff since the previous run. Slicing that window keeps partitions about even; the cutoff
+    // is rounded to the interval so every node computes the same slices.
+    @Override
+    public void run(JobContext context) {
+        long interval = Math.max(1, intervalMillis);
+        Instant cutoff = Instant.ofEpochMilli(Math.floorDiv(Instant.now().minus(archiveAfter).toEpochMilli(), interval) * interval);
+        archive(cutoff, context.ownedIdRange(cutoff.minusMillis(interval), cutoff), context::checkLease);
+    }
+
+    // Reads consult the archive whenever it exists, not only while the job runs, so orders archived
+    // before archiving was switched off stay readable
+    public boolean hasArchive() {
+        if (!archivePresent && mongoTemplate.collectionExists(ARCHIVE_COLLECTION)) {
+            archivePresent = true;
+        }
+        return archivePresent;
+    }
+
+    public Optional<Order> findArchivedOrder(String orderId) {
+        if (!hasArchive()) {
+            return Optional.empty();
+        }
+        return Optional.ofNullable(mongoTemplate.findById(orderId, Order.class, ARCHIVE_COLLECTION));
+    }
+
+    public List<Order> findArchivedOrders(String userId) {
+        if (!hasArchive()) {
+            return List.of();
+        }
+        return mongoTemplate.find(Query.query(Criteria.where("userId").is(userId)), Order.class, ARCHIVE_COLLECTION);
+    }
+
+    // Archives up to maxBatchesPerRun batches; returns the number of orders moved
+    public long archive() {
+        return archive(Instant.now().minus(archiveAfter), new Criteria(), () -> { });
+    }
+
+    // checkLease runs before every write, so a holder that lost its lease stops before its next copy or delete
+    private long archive(Instant cutoff, Criteria owned, Runnable checkLease) {
+        long moved = 0;
+
+        for (int batch = 0; batch < maxBatchesPerRun; batch++) {
+            // Orders with undelivered outbox events stay hot until the relay has drained them, and orders
+            // waiting for a sales rollup rebuild to count them stay where the rebuild looks for them
+            Query candidates = Query.query(new Criteria().andOperator(
+                            Criteria.where("status").in(SETTLED).and("createdAt").lt(cutoff)
+                                    .and("pendingEvents.0").exists(false).and("rollupDeferred").exists(false),
+                            owned))
+                    .with(Sort.by("createdAt"))
+                    .limit(batchSize);
+            List<Order> orders = mongoTemplate.find(candidates, Order.class);
+            if (orders.isEmpty()) {
+                break;
+            }
+
+            // Copy first (idempotent upserts), then delete only what is still settled, so a crash between
+            // the two steps leaves a duplicate that the next run cleans up rather than a lost order
+            BulkOperations archive = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Order.class, ARCHIVE_COLLECTION);
+            List<String> ids = new ArrayList<>(orders.size());
+            for (Order order : orders) {
+                archive.replaceOne(Query.query(Criteria.where("_id").is(order.getId())), order,
+                        FindAndReplaceOptions.options().upsert());
+                ids.add(order.getId());
+            }
+            checkLease.run();
+            archive.execute();
+
+            checkLease.run();
+            moved += mongoTemplate.remove(Query.query(Criteria.where("_id").in(ids).and("status").in(SETTLED)),
+                    Order.class).getDeletedCount();
+
+            if (orders.size() < batchSize) {
+                break;
+            }
+        }
+
+        if (moved > 0) {
+            log.info("Archived {} settled orders older than {}", moved, cutoff);
+        }
+        return moved;
+    }
+
+    private void ensureArchiveCollection() {
+        if (!mongoTemplate.collectionExists(ARCHIVE_COLLECTION)) {
+            // Cold data is read rarely, so trade CPU for disk with zstd block compression
+            mongoTemplate.executeCommand(new Document("create", ARCHIVE_COLLECTION)
+                    .append("storageEngine", new Document("wiredTiger",
+                            new Document("configString", "block_compressor=zstd"))));
+        }
+        mongoTemplate.indexOps(ARCHIVE_COLLECTION).createIndex(new Index().on("userId", Sort.Direction.ASC));
+        mongoTemplate.indexOps(Order.class).createIndex(new Index()
+                .on("status", Sort.Direction.ASC)
+                .on("createdAt", Sort.Direction.ASC));
+        archivePresent = true;
+    }
+}
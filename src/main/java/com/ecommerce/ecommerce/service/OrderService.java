@@ -2,17 +2,29 @@ package com.ecommerce.ecommerce.service;
 
 import com.ecommerce.ecommerce.dto.CreateOrderRequest;
 import com.ecommerce.ecommerce.dto.OrderResponse;
+import com.ecommerce.ecommerce.inventory.Allocation;
 import com.ecommerce.ecommerce.model.*;
+import com.ecommerce.ecommerce.pricing.Money;
+import com.ecommerce.ecommerce.pricing.PricingContext;
+import com.ecommerce.ecommerce.profiling.CheckoutPhaseEvent;
 import com.ecommerce.ecommerce.repository.OrderRepository;
 import com.ecommerce.ecommerce.repository.PaymentRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.bson.types.ObjectId;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.Instant;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
@@ -23,24 +35,42 @@ public class OrderService {
     private final PaymentRepository paymentRepository;
     private final CartService cartService;
     private final ProductService productService;
+    private final PricingService pricingService;
+    private final CacheInvalidationBus invalidationBus;
+    private final OrderWriteBatcher orderWriteBatcher;
+    private final SalesRollupService salesRollupService;
+    private final MongoTemplate mongoTemplate;
+    private final TrendingService trendingService;
+    private final RecommendationService recommendationService;
+    private final OrderArchiveService orderArchiveService;
+    private final InventoryService inventoryService;
 
     @Transactional
     public Order createOrder(CreateOrderRequest request) {
         log.info("Creating order for user: {}", request.getUserId());
 
         // 1. Fetch cart items
+        CheckoutPhaseEvent cartLoad = CheckoutPhaseEvent.begin("cart-load", request.getUserId());
         List<CartItem> cartItems = cartService.getCartItemsByUserId(request.getUserId());
+        cartLoad.finish(cartItems.size(), true);
         
         if (cartItems.isEmpty()) {
             throw new RuntimeException("Cart is empty");
         }
 
-        // 2. Validate stock availability and calculate total
-        double totalAmount = 0.0;
+        // 2. Validate stock availability and price the cart in paise
+        CheckoutPhaseEvent stockCheck = CheckoutPhaseEvent.begin("stock-check", request.getUserId());
+        PricingContext pricing = pricingService.newContext();
+        pricing.setCouponCode(request.getCouponCode());
         List<OrderItem> orderItems = new ArrayList<>();
+        Map<String, Product> products = productService.getProductsByIds(
+                cartItems.stream().map(CartItem::getProductId).toList());
 
         for (CartItem cartItem : cartItems) {
-            Product product = productService.getProductById(cartItem.getProductId());
+            Product product = products.get(cartItem.getProductId());
+            if (product == null) {
+                throw new RuntimeException("Product not found with ID: " + cartItem.getProductId());
+            }
 
             // Check stock availability
             if (product.getStock() < cartItem.getQuantity()) {
@@ -56,27 +86,79 @@ public class OrderService {
             orderItem.setPrice(product.getPrice());
             
             orderItems.add(orderItem);
-            totalAmount += product.getPrice() * cartItem.getQuantity();
+            pricing.addLine(Money.toPaise(product.getPrice()), cartItem.getQuantity());
+        }
+
+        // Run promotions, coupons and taxes
+        pricingService.price(pricing);
+        long totalPaise = pricing.totalPaise();
+        double totalAmount = Money.toRupees(totalPaise);
+        stockCheck.finish(orderItems.size(), true);
+
+        // Decide which warehouse ships each unit, from the same product snapshot
+        CheckoutPhaseEvent allocate = CheckoutPhaseEvent.begin("allocate", request.getUserId());
+        Allocation allocation;
+        try {
+            allocation = inventoryService.allocate(orderItems, products,
+                    request.getShippingLatitude(), request.getShippingLongitude());
+        } catch (RuntimeException e) {
+            allocate.finish(orderItems.size(), false);
+            throw e;
         }
+        allocate.finish(orderItems.size(), true);
 
         // 3. Create order
         Order order = new Order();
         order.setUserId(request.getUserId());
         order.setTotalAmount(totalAmount);
+        order.setSubtotalPaise(pricing.getSubtotalPaise());
+        order.setDiscountPaise(pricing.getDiscountPaise());
+        order.setTaxPaise(pricing.getTaxPaise());
+        order.setTotalPaise(totalPaise);
         order.setStatus(OrderStatus.CREATED);
         order.setCreatedAt(Instant.now());
         order.setItems(orderItems);
+        order.setShipments(allocation.shipments());
+        if (salesRollupService.isDeferring()) {
+            order.setRollupDeferred(true);
+        }
 
-        Order savedOrder = orderRepository.save(order);
-        log.info("Order created with ID: {} and total amount: {}", savedOrder.getId(), totalAmount);
-
-        // 4. Update product stock
-        for (CartItem cartItem : cartItems) {
-            productService.updateStock(cartItem.getProductId(), -cartItem.getQuantity());
+        // The id is fixed up front so the OrderCreated event travels inside the same document insert
+        order.setId(new ObjectId().toHexString());
+        order.getPendingEvents().add(OutboxEvent.of("Order", order.getId(), "OrderCreated", Map.of(
+                "userId", order.getUserId(),
+                "totalPaise", totalPaise,
+                "itemCount", orderItems.size())));
+
+        // 4. Reserve stock at the allocated locations, then save the order; both go through the group-commit batcher
+        CheckoutPhaseEvent stockUpdate = CheckoutPhaseEvent.begin("stock-update", request.getUserId());
+        try {
+            orderWriteBatcher.decrementStock(allocation.decrements());
+        } catch (RuntimeException e) {
+            stockUpdate.finish(orderItems.size(), false);
+            throw e;
         }
+        stockUpdate.finish(orderItems.size(), true);
+
+        Order savedOrder;
+        CheckoutPhaseEvent orderSave = CheckoutPhaseEvent.begin("order-save", request.getUserId());
+        try {
+            savedOrder = orderWriteBatcher.insertOrder(order);
+        } catch (RuntimeException e) {
+            orderSave.finish(orderItems.size(), false);
+            orderWriteBatcher.restoreStock(allocation.decrements());
+            throw e;
+        }
+        orderSave.finish(orderItems.size(), true);
+        log.info("Order created with ID: {} and total amount: {}", savedOrder.getId(), totalAmount);
+        salesRollupService.recordOrderCreated(savedOrder);
+        trendingService.recordOrder(orderItems);
+        recommendationService.recordOrder(savedOrder);
 
         // 5. Clear cart
+        CheckoutPhaseEvent cartClear = CheckoutPhaseEvent.begin("cart-clear", request.getUserId());
         cartService.clearCart(request.getUserId());
+        cartClear.finish(orderItems.size(), true);
         log.info("Cart cleared after order creation");
 
         return savedOrder;
@@ -85,16 +167,23 @@ public class OrderService {
     public OrderResponse getOrderById(String orderId) {
         log.info("Fetching order with ID: {}", orderId);
         
+        // Hot collection first, then the archive for settled orders that have aged out
         Order order = orderRepository.findById(orderId)
+                .or(() -> orderArchiveService.findArchivedOrder(orderId))
                 .orElseThrow(() -> new RuntimeException("Order not found with ID: " + orderId));
 
         OrderResponse response = new OrderResponse();
         response.setId(order.getId());
         response.setUserId(order.getUserId());
         response.setTotalAmount(order.getTotalAmount());
+        response.setSubtotalPaise(order.getSubtotalPaise());
+        response.setDiscountPaise(order.getDiscountPaise());
+        response.setTaxPaise(order.getTaxPaise());
+        response.setTotalPaise(order.getTotalPaise());
         response.setStatus(order.getStatus());
         response.setCreatedAt(order.getCreatedAt());
         response.setItems(order.getItems());
+        response.setShipments(order.getShipments());
 
         // Fetch payment details if exists
         paymentRepository.findByOrderId(orderId).ifPresent(response::setPayment);
@@ -104,18 +193,51 @@ public class OrderService {
 
     public List<Order> getUserOrders(String userId) {
         log.info("Fetching orders for user: {}", userId);
-        return orderRepository.findByUserId(userId);
+        List<Order> orders = new ArrayList<>(orderRepository.findByUserId(userId));
+        // An archive run interrupted between its copy and its delete leaves an order in both collections;
+        // the hot copy wins
+        Set<String> hotIds = orders.stream().map(Order::getId).collect(Collectors.toSet());
+        for (Order archived : orderArchiveService.findArchivedOrders(userId)) {
+            if (!hotIds.contains(archived.getId())) {
+                orders.add(archived);
+            }
+        }
+        return orders;
     }
 
     @Transactional
     public void updateOrderStatus(String orderId, OrderStatus status) {
         log.info("Updating order {} status to {}", orderId, status);
         
-        Order order = orderRepository.findById(orderId)
-                .orElseThrow(() -> new RuntimeException("Order not found with ID: " + orderId));
+        // Only a real transition matches, and we get the previous state back for the rollups.
+        // The status change event is pushed in the same update, so it exists exactly when the change does.
+        // While a rollup rebuild runs the order is marked in the same write, so the rebuild counts it afterwards.
+        OutboxEvent event = OutboxEvent.of("Order", orderId, "OrderStatusChanged", Map.of("status", status.name()));
+        boolean deferred = salesRollupService.isDeferring();
+        Update update = new Update().set("status", status).push("pendingEvents", event);
+        if (deferred) {
+            update.set("rollupDeferred", true);
+        }
+        Order previous = mongoTemplate.findAndModify(
+                Query.query(Criteria.where("_id").is(orderId).and("status").ne(status)),
+                update,
+                Order.class);
+
+        if (previous == null) {
+            if (orderRepository.existsById(orderId)) {
+                log.info("Order {} is already {}", orderId, status);
+                return;
+            }
+            // Only settled orders are archived, so an archived order is past any status change
+            if (orderArchiveService.findArchivedOrder(orderId).isPresent()) {
+                log.info("Order {} is already settled and archived", orderId);
+                return;
+            }
+            throw new RuntimeException("Order not found with ID: " + orderId);
+        }
 
-        order.setStatus(status);
-        orderRepository.save(order);
+        invalidationBus.invalidate("orders", orderId);
+        salesRollupService.recordStatusChange(previous, status, deferred);
         
         log.info("Order status updated successfully");
     }
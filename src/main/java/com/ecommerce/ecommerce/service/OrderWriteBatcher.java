@@ -0,0 +1,232 @@
+package com.ecommerce.ecommerce.service;
+
+import com.ecommerce.ecommerce.batch.GroupCommitBatcher;
+import com.ecommerce.ecommerce.batch.GroupCommitBatcher.Pending;
+import com.ecommerce.ecommerce.exception.InsufficientStockException;
+import com.ecommerce.ecommerce.inventory.StockAllocation;
+import com.ecommerce.ecommerce.inventory.StockExpressions;
+import com.ecommerce.ecommerce.model.Order;
+import com.ecommerce.ecommerce.model.Product;
+import com.mongodb.bulk.BulkWriteError;
+import com.mongodb.bulk.BulkWriteResult;
+import com.mongodb.bulk.BulkWriteUpsert;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.BasicQuery;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+// Group commit for the checkout write path. Concurrent createOrder calls are gathered into one unordered
+// bulk write per collection, and every caller gets back its own result or failure.
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class OrderWriteBatcher {
+
+    private static final int DUPLICATE_KEY = 11000;
+    private static final int DOCUMENT_VALIDATION_FAILURE = 121; // Databases that still carry the old stock validator
+
+    private final MongoTemplate mongoTemplate;
+    private final CacheInvalidationBus invalidationBus;
+
+    @Value("${orders.group-commit.enabled:true}")
+    private boolean enabled;
+
+    @Value("${orders.group-commit.window-ms:2}")
+    private long windowMillis;
+
+    @Value("${orders.group-commit.max-batch:128}")
+    private int maxBatch;
+
+    @Value("${orders.group-commit.queue-capacity:4096}")
+    private int queueCapacity;
+
+    @Value("${orders.group-commit.submit-timeout-ms:5000}")
+    private long submitTimeoutMillis;
+
+    private GroupCommitBatcher<List<StockAllocation>, Void> stockBatcher;
+    private GroupCommitBatcher<Order, Order> orderBatcher;
+
+    @PostConstruct
+    void start() {
+        // With group commit off every write is flushed on its own, through the same code path
+        int batchSize = enabled ? maxBatch : 1;
+        long windowNanos = enabled ? TimeUnit.MILLISECONDS.toNanos(windowMillis) : 0;
+
+        long timeoutNanos = TimeUnit.MILLISECONDS.toNanos(submitTimeoutMillis);
+
+        stockBatcher = new GroupCommitBatcher<>("stock", batchSize, windowNanos, queueCapacity, timeoutNanos, this::writeStock);
+        orderBatcher = new GroupCommitBatcher<>("orders", batchSize, windowNanos, queueCapacity, timeoutNanos, this::writeOrders);
+        stockBatcher.start();
+        orderBatcher.start();
+    }
+
+    @PreDestroy
+    void stop() {
+        stockBatcher.stop();
+        orderBatcher.stop();
+    }
+
+    // Decrements stock for every allocation of one order; all or nothing for that order
+    public void decrementStock(List<StockAllocation> allocations) {
+        stockBatcher.submit(allocations);
+    }
+
+    public Order insertOrder(Order order) {
+        return orderBatcher.submit(order);
+    }
+
+    public void restoreStock(List<StockAllocation> allocations) {
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Product.class);
+        for (StockAllocation allocation : allocations) {
+            bulk.updateOne(byId(allocation.productId()), stockChange(allocation, allocation.quantity()));
+        }
+        bulk.execute();
+        allocations.forEach(allocation -> invalidationBus.invalidate("products", allocation.productId()));
+    }
+
+    private void writeStock(List<Pending<List<StockAllocation>, Void>> batch) {
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Product.class);
+        List<Integer> owners = new ArrayList<>();
+
+        // Each decrement only matches while enough stock is left. A non-matching guarded upsert then tries
+        // to insert the product's _id again and fails with a duplicate key, reported by operation index, so
+        // every oversell maps back to the order that caused it without relying on a collection validator.
+        for (int i = 0; i < batch.size(); i++) {
+            for (StockAllocation allocation : batch.get(i).getItem()) {
+                bulk.upsert(guardedById(allocation), stockChange(allocation, -allocation.quantity()));
+                owners.add(i);
+            }
+        }
+
+        Set<Integer> erroredOps = new HashSet<>();
+        Set<Integer> insufficient = new HashSet<>();
+        Map<Integer, RuntimeException> failed = new HashMap<>();
+        BulkWriteResult result;
+        try {
+            result = bulk.execute();
+        } catch (BulkOperationException e) {
+            result = e.getResult();
+            for (BulkWriteError error : e.getErrors()) {
+                int owner = owners.get(error.getIndex());
+                erroredOps.add(error.getIndex());
+                if (error.getCode() == DUPLICATE_KEY || error.getCode() == DOCUMENT_VALIDATION_FAILURE) {
+                    insufficient.add(owner);
+                } else {
+                    failed.putIfAbsent(owner, new RuntimeException("Stock update failed: " + error.getMessage()));
+                }
+            }
+        }
+
+        // An upsert that inserted means the product no longer exists; drop the stray document
+        for (BulkWriteUpsert upsert : result.getUpserts()) {
+            erroredOps.add(upsert.getIndex());
+            failed.putIfAbsent(owners.get(upsert.getIndex()), new RuntimeException("Product no longer exists"));
+            mongoTemplate.remove(Query.query(Criteria.where("_id").is(upsert.getId())), Product.class);
+        }
+
+        int op = 0;
+        for (int i = 0; i < batch.size(); i++) {
+            Pending<List<StockAllocation>, Void> pending = batch.get(i);
+            boolean rejected = insufficient.contains(i) || failed.containsKey(i);
+
+            // Lines of a rejected order that did apply have to be put back
+            List<StockAllocation> applied = new ArrayList<>();
+            for (StockAllocation allocation : pending.getItem()) {
+                if (!erroredOps.contains(op)) {
+                    applied.add(allocation);
+                }
+                invalidationBus.invalidate("products", allocation.productId());
+                op++;
+            }
+
+            if (!rejected) {
+                if (!pending.getResult().complete(null)) {
+                    restoreStock(applied); // The caller timed out and will not create the order
+                }
+                continue;
+            }
+            if (!applied.isEmpty()) {
+                restoreStock(applied);
+            }
+            pending.getResult().completeExceptionally(insufficient.contains(i)
+                    ? new InsufficientStockException("Insufficient stock for one or more items in the order")
+                    : failed.get(i));
+        }
+    }
+
+    private void writeOrders(List<Pending<Order, Order>> batch) {
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Order.class);
+        for (Pending<Order, Order> pending : batch) {
+            Order order = pending.getItem();
+            if (order.getId() == null) {
+                order.setId(new ObjectId().toHexString()); // assigned up front so each caller knows its ID
+            }
+            bulk.insert(order);
+        }
+
+        Map<Integer, String> errors = new HashMap<>();
+        try {
+            bulk.execute();
+        } catch (BulkOperationException e) {
+            for (BulkWriteError error : e.getErrors()) {
+                errors.put(error.getIndex(), error.getMessage());
+            }
+        }
+
+        for (int i = 0; i < batch.size(); i++) {
+            Pending<Order, Order> pending = batch.get(i);
+            if (errors.containsKey(i)) {
+                pending.getResult().completeExceptionally(new RuntimeException("Failed to save order: " + errors.get(i)));
+            } else if (!pending.getResult().complete(pending.getItem())) {
+                // The caller timed out and has put the stock back, so the order must not stay
+                mongoTemplate.remove(Query.query(Criteria.where("_id").is(pending.getItem().getId())), Order.class);
+            }
+        }
+        log.debug("Group commit wrote {} orders", batch.size() - errors.size());
+    }
+
+    private Query byId(String productId) {
+        return Query.query(Criteria.where("_id").is(productId));
+    }
+
+    // Matches only while the source of the allocation still holds enough: the named warehouse, or the
+    // un-located remainder of the total
+    private Query guardedById(StockAllocation allocation) {
+        Document filter = new Document("_id", allocation.productId())
+                .append("stock", new Document("$gte", allocation.quantity()));
+        if (allocation.warehouseId() != null) {
+            filter.append("stockByWarehouse." + allocation.warehouseId(), new Document("$gte", allocation.quantity()));
+        } else {
+            filter.append("$expr", StockExpressions.unlocatedAtLeast(allocation.quantity()));
+        }
+        return new BasicQuery(filter);
+    }
+
+    // The total and the location move together, so un-located stock (total minus locations) is unchanged
+    private Update stockChange(StockAllocation allocation, int delta) {
+        Update update = new Update().inc("stock", delta).inc("version", 1);
+        if (allocation.warehouseId() != null) {
+            update.inc("stockByWarehouse." + allocation.warehouseId(), delta);
+        }
+        return update;
+    }
+}
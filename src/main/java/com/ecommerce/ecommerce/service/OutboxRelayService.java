@@ -0,0 +1,294 @@
+package com.ecommerce.ecommerce.service;
+
+import com.ecommerce.ecommerce.model.Order;
+import com.ecommerce.ecommerce.model.OutboxEvent;
+import com.ecommerce.ecommerce.model.Payment;
+import com.ecommerce.ecommerce.outbox.OutboxSink;
+import com.ecommerce.ecommerce.scheduler.JobContext;
+import com.ecommerce.ecommerce.scheduler.LeasedJob;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Relays domain events from the pendingEvents arrays on orders and payments to every OutboxSink.
+// Events are written by the same single-document update as the state change they describe, so no
+// multi-document transaction is needed. Delivery is at least once: events are removed with $pull only
+// after all sinks accepted them, and consumers deduplicate on eventId. Failures are handled per
+// aggregate: the sinks that accepted are recorded on the events, the aggregate backs off exponentially,
+// and after outbox.relay.max-attempts its events move to outbox_dead_letters so later ones can flow.
+// Runs as a leased job with one partition per aggregate collection, so each collection is relayed by a
+// single node and per-aggregate ordering holds across the cluster.
+@Service
+@Slf4j
+public class OutboxRelayService implements LeasedJob {
+
+    private static final List<Class<?>> AGGREGATES = List.of(Order.class, Payment.class);
+    private static final String DEAD_LETTERS = "outbox_dead_letters";
+
+    private final MongoTemplate mongoTemplate;
+    private final ObjectProvider<OutboxSink> sinks;
+    private final Counter published;
+    private final Counter retried;
+    private final Counter deadLettered;
+    private final Map<Class<?>, AtomicLong> lagMillis = new ConcurrentHashMap<>();
+
+    @Value("${outbox.relay.enabled:true}")
+    private boolean enabled;
+
+    @Value("${outbox.relay.interval-ms:500}")
+    private long intervalMillis;
+
+    @Value("${outbox.relay.batch-size:200}")
+    private int batchSize;
+
+    @Value("${outbox.relay.max-attempts:10}")
+    private int maxAttempts;
+
+    @Value("${outbox.relay.retry-backoff-ms:1000}")
+    private long retryBackoffMillis;
+
+    @Value("${outbox.relay.max-backoff-ms:300000}")
+    private long maxBackoffMillis;
+
+    public OutboxRelayService(MongoTemplate mongoTemplate, ObjectProvider<OutboxSink> sinks, MeterRegistry meterRegistry) {
+        this.mongoTemplate = mongoTemplate;
+        this.sinks = sinks;
+        this.published = Counter.builder("outbox.published").register(meterRegistry);
+        this.retried = Counter.builder("outbox.retried")
+                .description("Aggregates whose delivery failed and was scheduled for a retry")
+                .register(meterRegistry);
+        this.deadLettered = Counter.builder("outbox.dead_lettered")
+                .description("Events moved to outbox_dead_letters after too many failed attempts")
+                .register(meterRegistry);
+        Gauge.builder("outbox.lag", lagMillis, lags -> lags.values().stream().mapToLong(AtomicLong::get).max().orElse(0))
+                .baseUnit("milliseconds")
+                .description("Age of the oldest undelivered outbox event")
+                .register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        for (Class<?> aggregate : AGGREGATES) {
+            // Multikey index; documents with an empty array are not matched by the range scan below
+            mongoTemplate.indexOps(aggregate).createIndex(new Index().on("pendingEvents.occurredAt", Sort.Direction.ASC));
+        }
+    }
+
+    @Override
+    public String jobName() {
+        return "outbox-relay";
+    }
+
+    @Override
+    public Duration interval() {
+        return Duration.ofMillis(intervalMillis);
+    }
+
+    @Override
+    public int partitions() {
+        return AGGREGATES.size();
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    @Override
+    public void run(JobContext context) {
+        relay(AGGREGATES.get(context.getPartition()), context);
+    }
+
+    // One pass over every aggregate collection; returns the number of events delivered
+    public int relay() {
+        int delivered = 0;
+        for (Class<?> aggregate : AGGREGATES) {
+            delivered += relay(aggregate, null);
+        }
+        return delivered;
+    }
+
+    // context is null for an unleased pass (tests, manual runs), which skips the lease check and fencing
+    private int relay(Class<?> aggregate, JobContext context) {
+        Instant now = Instant.now();
+        // Documents whose events are backing off after a failure are skipped until the retry is due
+        Query pending = Query.query(Criteria.where("pendingEvents.occurredAt").lte(now)
+                        .and("pendingEvents.nextAttemptAt").not().gt(now))
+                .with(Sort.by("pendingEvents.occurredAt"))
+                .limit(batchSize);
+        pending.fields().include("pendingEvents");
+
+        String collection = mongoTemplate.getCollectionName(aggregate);
+        List<Document> documents = mongoTemplate.find(pending, Document.class, collection);
+        List<OutboxSink> targets = sinks.orderedStream().toList();
+        Instant oldest = now;
+        int delivered = 0;
+
+        BulkOperations acknowledge = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, aggregate);
+        List<Document> deadLetters = new ArrayList<>();
+        int acknowledged = 0;
+        for (Document document : documents) {
+            Object id = document.get("_id");
+            List<OutboxEvent> events;
+            try {
+                events = readEvents(document);
+            } catch (RuntimeException e) {
+                // Unreadable events can never be delivered; park them so the rest of the aggregate moves on
+                log.error("Dead-lettering unreadable outbox events of {} {}", collection, id, e);
+                List<?> raw = rawEvents(document);
+                List<Object> rawIds = new ArrayList<>(raw.size());
+                for (Object event : raw) {
+                    rawIds.add(event instanceof Document rawEvent ? rawEvent.get("eventId") : null);
+                }
+                deadLetters.add(deadLetter(collection, id, raw, List.of(), e));
+                acknowledge.updateOne(fenced(id, context),
+                        fence(new Update().pull("pendingEvents", new Document("eventId", new Document("$in", rawIds))), context));
+                deadLettered.increment(raw.size());
+                acknowledged++;
+                continue;
+            }
+            if (events.isEmpty()) {
+                continue;
+            }
+            if (events.getFirst().getOccurredAt().isBefore(oldest)) {
+                oldest = events.getFirst().getOccurredAt();
+            }
+
+            // Array order is write order, so each aggregate's events reach every sink in sequence. A sink
+            // only gets the events it has not accepted yet, and one failing sink does not hold back the others.
+            List<String> accepted = new ArrayList<>();
+            List<String> failed = new ArrayList<>();
+            RuntimeException failure = null;
+            for (OutboxSink sink : targets) {
+                List<OutboxEvent> undelivered = events.stream()
+                        .filter(event -> event.getDeliveredTo() == null || !event.getDeliveredTo().contains(sink.name()))
+                        .toList();
+                if (undelivered.isEmpty()) {
+                    continue;
+                }
+                try {
+                    sink.publish(undelivered);
+                    accepted.add(sink.name());
+                } catch (RuntimeException e) {
+                    failed.add(sink.name());
+                    failure = e;
+                }
+            }
+
+            List<String> eventIds = new ArrayList<>(events.size());
+            for (OutboxEvent event : events) {
+                eventIds.add(event.getEventId());
+            }
+            Query byId = fenced(id, context);
+            Update pull = fence(new Update().pull("pendingEvents", new Document("eventId", new Document("$in", eventIds))), context);
+            if (failure == null) {
+                acknowledge.updateOne(byId, pull);
+                delivered += events.size();
+            } else {
+                int attempts = events.stream().mapToInt(OutboxEvent::getAttempts).max().orElse(0) + 1;
+                if (attempts >= maxAttempts) {
+                    log.error("Dead-lettering {} outbox events of {} {} after {} attempts; failed sinks {}",
+                            events.size(), collection, id, attempts, failed, failure);
+                    deadLetters.add(deadLetter(collection, id, rawEvents(document), failed, failure));
+                    acknowledge.updateOne(byId, pull);
+                    deadLettered.increment(events.size());
+                } else {
+                    Duration backoff = backoff(attempts);
+                    log.warn("Outbox delivery of {} {} failed for sinks {} (attempt {}), retrying in {}",
+                            collection, id, failed, attempts, backoff, failure);
+                    Update retry = fence(new Update(), context)
+                            .set("pendingEvents.$[event].attempts", attempts)
+                            .set("pendingEvents.$[event].nextAttemptAt", now.plus(backoff))
+                            .filterArray(Criteria.where("event.eventId").in(eventIds));
+                    if (!accepted.isEmpty()) {
+                        retry.addToSet("pendingEvents.$[event].deliveredTo").each(accepted.toArray());
+                    }
+                    acknowledge.updateOne(byId, retry);
+                    retried.increment();
+                }
+            }
+            acknowledged++;
+        }
+        if (acknowledged > 0) {
+            if (context != null) {
+                context.checkLease();
+            }
+            if (!deadLetters.isEmpty()) {
+                mongoTemplate.insert(deadLetters, DEAD_LETTERS);
+            }
+            acknowledge.execute();
+        }
+
+        lagMillis.computeIfAbsent(aggregate, key -> new AtomicLong()).set(now.toEpochMilli() - oldest.toEpochMilli());
+        published.increment(delivered);
+        return delivered;
+    }
+
+    // Exponential from the base delay, capped
+    private Duration backoff(int attempts) {
+        long delay = retryBackoffMillis << Math.min(attempts - 1, 20);
+        return Duration.ofMillis(Math.min(delay, maxBackoffMillis));
+    }
+
+    // Acknowledgements only apply while no newer lease holder has written to the aggregate: the holder's
+    // fencing token is stored in outboxFence, and a paused former holder's older token no longer matches
+    private static Query fenced(Object id, JobContext context) {
+        Criteria criteria = Criteria.where("_id").is(id);
+        if (context != null) {
+            criteria.and("outboxFence").not().gt(context.getFencingToken());
+        }
+        return Query.query(criteria);
+    }
+
+    private static Update fence(Update update, JobContext context) {
+        return context != null ? update.set("outboxFence", context.getFencingToken()) : update;
+    }
+
+    private static Document deadLetter(String collection, Object aggregateId, List<?> events, List<String> failedSinks, RuntimeException failure) {
+        return new Document("aggregateCollection", collection)
+                .append("aggregateId", aggregateId)
+                .append("events", events)
+                .append("failedSinks", failedSinks)
+                .append("error", String.valueOf(failure))
+                .append("deadLetteredAt", Instant.now());
+    }
+
+    private static List<?> rawEvents(Document document) {
+        List<?> raw = document.get("pendingEvents", List.class);
+        return raw != null ? raw : List.of();
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<OutboxEvent> readEvents(Document document) {
+        List<Document> raw = (List<Document>) document.get("pendingEvents", List.class);
+        List<OutboxEvent> events = new ArrayList<>(raw == null ? 0 : raw.size());
+        if (raw != null) {
+            for (Document event : raw) {
+                events.add(mongoTemplate.getConverter().read(OutboxEvent.class, event));
+            }
+        }
+        return events;
+    }
+}
@@ -0,0 +1,316 @@
+package com.ecommerce.ecommerce.service;
+
+import com.ecommerce.ecommerce.admission.TokenBucket;
+import com.ecommerce.ecommerce.dto.ReconciliationReport;
+import com.ecommerce.ecommerce.exception.OverloadedException;
+import com.ecommerce.ecommerce.model.OrderStatus;
+import com.ecommerce.ecommerce.model.OutboxEvent;
+import com.ecommerce.ecommerce.model.Payment;
+import com.ecommerce.ecommerce.model.PaymentStatus;
+import com.ecommerce.ecommerce.reconciliation.GatewayPaymentStatus;
+import com.ecommerce.ecommerce.reconciliation.PaymentGateway;
+import com.ecommerce.ecommerce.scheduler.JobContext;
+import com.ecommerce.ecommerce.scheduler.LeasedJob;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Settles payments left PENDING because the webhook or the client-side verify never arrived. Pages
+// through PENDING payments older than 'after' on the (status, createdAt, _id) index, asks the gateway
+// about each one with bounded parallelism and a shared rate limit, and applies each page's outcomes in
+// one bulk write. Orders follow their settled payments in a separate pass driven by orderSyncPending,
+// so an order update that fails is retried by the next run. Runs as a single-partition leased job, since
+// the gateway rate limit is per node and more partitions would multiply the rate; the admin endpoint
+// runs it on demand, never concurrently with a run already in progress on this node.
+@Service
+@Slf4j
+public class PaymentReconciliationService implements LeasedJob {
+
+    private static final long BUSY_RETRY_AFTER_SECONDS = 30;
+
+    private final MongoTemplate mongoTemplate;
+    private final PaymentGateway gateway;
+    private final OrderService orderService;
+    private final ExecutorService gatewayPool;
+    private final TokenBucket rateLimit;
+    private final Counter succeeded;
+    private final Counter failed;
+    private final Counter unchanged;
+    private final Counter errors;
+    private final Timer runTimer;
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    @Value("${payments.reconciliation.enabled:true}")
+    private boolean enabled;
+
+    @Value("${payments.reconciliation.interval-ms:300000}")
+    private long intervalMillis;
+
+    @Value("${payments.reconciliation.after:15m}")
+    private Duration reconcileAfter;
+
+    // Payments with no successful attempt are only failed once the customer can no longer complete them
+    @Value("${payments.reconciliation.fail-after:24h}")
+    private Duration failAfter;
+
+    @Value("${payments.reconciliation.page-size:100}")
+    private int pageSize;
+
+    @Value("${payments.reconciliation.max-pages-per-run:50}")
+    private int maxPagesPerRun;
+
+    public PaymentReconciliationService(MongoTemplate mongoTemplate, PaymentGateway gateway, OrderService orderService,
+                                        MeterRegistry meterRegistry,
+                                        @Value("${payments.reconciliation.parallelism:4}") int parallelism,
+                                        @Value("${payments.reconciliation.rate-per-second:20}") double ratePerSecond) {
+        this.mongoTemplate = mongoTemplate;
+        this.gateway = gateway;
+        this.orderService = orderService;
+        AtomicInteger threads = new AtomicInteger();
+        this.gatewayPool = Executors.newFixedThreadPool(parallelism, runnable -> {
+            Thread thread = new Thread(runnable, "payment-reconciliation-" + threads.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.rateLimit = new TokenBucket(Math.max(1, (int) ratePerSecond), ratePerSecond);
+        this.succeeded = outcomeCounter(meterRegistry, "succeeded");
+        this.failed = outcomeCounter(meterRegistry, "failed");
+        this.unchanged = outcomeCounter(meterRegistry, "unchanged");
+        this.errors = outcomeCounter(meterRegistry, "error");
+        this.runTimer = Timer.builder("payments.reconciliation.run").register(meterRegistry);
+    }
+
+    private static Counter outcomeCounter(MeterRegistry meterRegistry, String outcome) {
+        return Counter.builder("payments.reconciliation").tag("outcome", outcome).register(meterRegistry);
+    }
+
+    @PreDestroy
+    void stop() {
+        gatewayPool.shutdownNow();
+    }
+
+    @Override
+    public String jobName() {
+        return "payment-reconciliation";
+    }
+
+    @Override
+    public Duration interval() {
+        return Duration.ofMillis(intervalMillis);
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    @Override
+    public void run(JobContext context) {
+        if (running.compareAndSet(false, true)) {
+            try {
+                reconcile(context::checkLease);
+            } finally {
+                running.set(false);
+            }
+        }
+    }
+
+    public ReconciliationReport reconcile() {
+        if (!running.compareAndSet(false, true)) {
+            throw new OverloadedException("Payment reconciliation is already running", BUSY_RETRY_AFTER_SECONDS);
+        }
+        try {
+            return reconcile(() -> { });
+        } finally {
+            running.set(false);
+        }
+    }
+
+    private record Outcome(Payment payment, GatewayPaymentStatus status) {
+    }
+
+    private ReconciliationReport reconcile(Runnable beforePage) {
+        long started = System.nanoTime();
+        Instant now = Instant.now();
+        Instant cutoff = now.minus(reconcileAfter);
+        Instant failCutoff = now.minus(failAfter);
+        long examined = 0, success = 0, failure = 0, skipped = 0, error = 0;
+
+        // Orders left behind by an earlier run
+        error += syncOrders(beforePage);
+
+        Instant lastCreatedAt = null;
+        String lastId = null;
+        for (int page = 0; page < maxPagesPerRun; page++) {
+            beforePage.run();
+            List<Payment> payments = mongoTemplate.find(pendingPage(cutoff, lastCreatedAt, lastId), Payment.class);
+            if (payments.isEmpty()) {
+                break;
+            }
+            lastCreatedAt = payments.getLast().getCreatedAt();
+            lastId = payments.getLast().getId();
+            examined += payments.size();
+
+            List<CompletableFuture<Outcome>> calls = new ArrayList<>(payments.size());
+            for (Payment payment : payments) {
+                calls.add(CompletableFuture.supplyAsync(() -> new Outcome(payment, fetch(payment)), gatewayPool));
+            }
+
+            BulkOperations updates = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Payment.class);
+            int settled = 0;
+            for (CompletableFuture<Outcome> call : calls) {
+                Outcome outcome = call.join();
+                Payment payment = outcome.payment();
+                GatewayPaymentStatus status = outcome.status();
+                if (status == null) {
+                    error++;
+                } else if (status.state() == GatewayPaymentStatus.State.CAPTURED) {
+                    settle(updates, payment, PaymentStatus.SUCCESS, status.paymentId());
+                    settled++;
+                    success++;
+                } else if (status.state() != GatewayPaymentStatus.State.IN_PROGRESS
+                        && payment.getCreatedAt().isBefore(failCutoff)) {
+                    settle(updates, payment, PaymentStatus.FAILED, null);
+                    settled++;
+                    failure++;
+                } else {
+                    skipped++;
+                }
+            }
+
+            if (settled > 0) {
+                beforePage.run();
+                updates.execute();
+                error += syncOrders(beforePage);
+            }
+
+            if (payments.size() < pageSize) {
+                break;
+            }
+        }
+
+        long elapsedNanos = System.nanoTime() - started;
+        runTimer.record(Duration.ofNanos(elapsedNanos));
+        succeeded.increment(success);
+        failed.increment(failure);
+        unchanged.increment(skipped);
+        errors.increment(error);
+
+        long durationMillis = elapsedNanos / 1_000_000;
+        double perSecond = elapsedNanos == 0 ? 0 : examined * 1_000_000_000d / elapsedNanos;
+        if (examined > 0) {
+            log.info("Reconciled {} pending payments in {} ms ({} /s): {} succeeded, {} failed, {} unchanged, {} errors",
+                    examined, durationMillis, String.format("%.1f", perSecond), success, failure, skipped, error);
+        }
+        return new ReconciliationReport(examined, success, failure, skipped, error, durationMillis, perSecond);
+    }
+
+    // Keyset page in (createdAt, _id) order, so a page is a bounded range scan however many have been processed
+    private Query pendingPage(Instant cutoff, Instant lastCreatedAt, String lastId) {
+        Criteria criteria = Criteria.where("status").is(PaymentStatus.PENDING);
+        if (lastCreatedAt == null) {
+            criteria.and("createdAt").lt(cutoff);
+        } else {
+            criteria.orOperator(
+                    Criteria.where("createdAt").gt(lastCreatedAt).lt(cutoff),
+                    Criteria.where("createdAt").is(lastCreatedAt).and("_id").gt(lastId));
+        }
+        return Query.query(criteria)
+                .with(Sort.by("createdAt", "_id"))
+                .limit(pageSize);
+    }
+
+    // Moves the orders of flagged payments (settled here, or by a webhook or verify call whose order update
+    // did not finish), then clears their flag; returns the number of orders that could not be updated,
+    // which keep the flag for the next run. Order transitions go through
+    // OrderService so rollups, outbox events and cache invalidation stay consistent; it is a no-op for
+    // orders a webhook already moved. The target follows the payment's stored status, so a webhook that
+    // won the race decides the outcome.
+    private long syncOrders(Runnable checkLease) {
+        long failures = 0;
+        String lastId = null;
+        while (true) {
+            checkLease.run();
+            Criteria criteria = Criteria.where("orderSyncPending").is(true);
+            if (lastId != null) {
+                criteria.and("_id").gt(lastId);
+            }
+            Query flagged = Query.query(criteria).with(Sort.by("_id")).limit(pageSize);
+            flagged.fields().include("orderId").include("status");
+            List<Payment> payments = mongoTemplate.find(flagged, Payment.class);
+            if (payments.isEmpty()) {
+                return failures;
+            }
+
+            for (Payment payment : payments) {
+                OrderStatus target = payment.getStatus() == PaymentStatus.SUCCESS ? OrderStatus.PAID : OrderStatus.FAILED;
+                try {
+                    orderService.updateOrderStatus(payment.getOrderId(), target);
+                    mongoTemplate.updateFirst(Query.query(Criteria.where("_id").is(payment.getId())),
+                            new Update().unset("orderSyncPending"), Payment.class);
+                } catch (RuntimeException e) {
+                    log.warn("Failed to move order {} to {} after reconciling payment {}: {}",
+                            payment.getOrderId(), target, payment.getId(), e.getMessage());
+                    failures++;
+                }
+            }
+            lastId = payments.getLast().getId();
+            if (payments.size() < pageSize) {
+                return failures;
+            }
+        }
+    }
+
+    // Null when the gateway could not be asked; the payment stays PENDING for the next run
+    private GatewayPaymentStatus fetch(Payment payment) {
+        if (payment.getRazorpayOrderId() == null) {
+            return new GatewayPaymentStatus(GatewayPaymentStatus.State.NO_ATTEMPT, null);
+        }
+        try {
+            rateLimit.acquire();
+            return gateway.fetchStatus(payment.getRazorpayOrderId());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        } catch (RuntimeException e) {
+            log.warn("Failed to fetch gateway status for payment {}: {}", payment.getId(), e.getMessage());
+            return null;
+        }
+    }
+
+    // Guarded on PENDING, so a webhook that lands mid-run wins and the bulk write leaves that payment alone
+    private static void settle(BulkOperations updates, Payment payment, PaymentStatus status, String paymentId) {
+        Update update = new Update().set("status", status)
+                .set("orderSyncPending", true)
+                .push("pendingEvents", OutboxEvent.of("Payment", payment.getId(),
+                        status == PaymentStatus.SUCCESS ? "PaymentSucceeded" : "PaymentFailed",
+                        Map.of("orderId", payment.getOrderId(),
+                                "status", status.name(),
+                                "amountPaise", PaymentService.amountPaise(payment))));
+        if (paymentId != null) {
+            update.set("paymentId", paymentId);
+        }
+        updates.updateOne(Query.query(Criteria.where("_id").is(payment.getId()).and("status").is(PaymentStatus.PENDING)), update);
+    }
+}
@@ -3,23 +3,32 @@ package com.ecommerce.ecommerce.service;
 import com.ecommerce.ecommerce.dto.CreatePaymentRequest;
 import com.ecommerce.ecommerce.dto.PaymentResponse;
 import com.ecommerce.ecommerce.dto.PaymentVerificationRequest;
+import com.ecommerce.ecommerce.exception.InvalidPaymentException;
 import com.ecommerce.ecommerce.model.Order;
 import com.ecommerce.ecommerce.model.OrderStatus;
+import com.ecommerce.ecommerce.model.OutboxEvent;
 import com.ecommerce.ecommerce.model.Payment;
 import com.ecommerce.ecommerce.model.PaymentStatus;
+import com.ecommerce.ecommerce.pricing.Money;
+import com.ecommerce.ecommerce.profiling.RazorpayCallEvent;
+import com.ecommerce.ecommerce.profiling.WebhookEvent;
 import com.ecommerce.ecommerce.repository.OrderRepository;
 import com.ecommerce.ecommerce.repository.PaymentRepository;
+import com.ecommerce.ecommerce.signature.RazorpaySignatureVerifier;
 import com.razorpay.RazorpayClient;
-import com.razorpay.Utils;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.bson.types.ObjectId;
 import org.json.JSONObject;
-import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
-import javax.crypto.Mac;
-import javax.crypto.spec.SecretKeySpec;
 import java.time.Instant;
 import java.util.Map;
 
@@ -31,10 +40,9 @@ public class PaymentService {
     private final PaymentRepository paymentRepository;
     private final OrderRepository orderRepository;
     private final OrderService orderService;
-    private final RazorpayClient razorpayClient;
-
-    @Value("${razorpay.key.secret}")
-    private String razorpayKeySecret;
+    private final MongoTemplate mongoTemplate;
+    private final ObjectProvider<RazorpayClient> razorpayClient; // created on first payment, not at startup
+    private final RazorpaySignatureVerifier signatureVerifier;
 
     @Transactional
     public PaymentResponse createPayment(CreatePaymentRequest request) {
@@ -48,10 +56,18 @@ public class PaymentService {
             throw new RuntimeException("Order is not in CREATED status. Current status: " + order.getStatus());
         }
 
+        // The order's total in paise is what gets charged; the request amount must agree with it
+        long amountPaise = order.getTotalPaise() != null ? order.getTotalPaise() : Money.toPaise(order.getTotalAmount());
+        if (Money.toPaise(request.getAmount()) != amountPaise) {
+            throw new InvalidPaymentException("Payment amount " + request.getAmount() + " does not match order total "
+                    + Money.toRupees(amountPaise));
+        }
+
         // Create payment record
         Payment payment = new Payment();
         payment.setOrderId(request.getOrderId());
-        payment.setAmount(request.getAmount());
+        payment.setAmountPaise(amountPaise);
+        payment.setAmount(Money.toRupees(amountPaise));
         payment.setStatus(PaymentStatus.PENDING);
         payment.setCreatedAt(Instant.now());
 
@@ -64,16 +80,26 @@ public class PaymentService {
 
             // Create Razorpay order
             JSONObject orderRequest = new JSONObject();
-            orderRequest.put("amount", (int) (payment.getAmount() * 100)); // Amount in paise
+            orderRequest.put("amount", payment.getAmountPaise()); // Amount in paise
             orderRequest.put("currency", "INR");
             orderRequest.put("receipt", payment.getOrderId());
 
-            com.razorpay.Order razorpayOrder = razorpayClient.orders.create(orderRequest);
+            RazorpayCallEvent call = RazorpayCallEvent.begin("orders.create", payment.getOrderId(), payment.getAmountPaise());
+            com.razorpay.Order razorpayOrder;
+            try {
+                razorpayOrder = razorpayClient.getObject().orders.create(orderRequest);
+            } catch (Exception e) {
+                call.finish(false);
+                throw e;
+            }
+            call.finish(true);
             
             String razorpayOrderId = razorpayOrder.get("id");
             log.info("Razorpay order created: {}", razorpayOrderId);
 
             payment.setRazorpayOrderId(razorpayOrderId);
+            payment.setId(new ObjectId().toHexString()); // known before the insert so the event can carry it
+            addEvent(payment, "PaymentCreated");
             Payment savedPayment = paymentRepository.save(payment);
 
             return mapToPaymentResponse(savedPayment);
@@ -87,6 +113,8 @@ public class PaymentService {
     @Transactional
     public void handleRazorpayWebhook(Map<String, Object> webhookData) {
         log.info("Processing Razorpay webhook");
+        WebhookEvent webhook = WebhookEvent.begin("razorpay", String.valueOf(webhookData.get("event")));
+        String outcome = "ignored";
 
         try {
             String event = (String) webhookData.get("event");
@@ -104,29 +132,25 @@ public class PaymentService {
                         razorpayPaymentId, razorpayOrderId, status);
 
                 // Find payment by razorpayOrderId
-                Payment payment = paymentRepository.findAll().stream()
-                        .filter(p -> razorpayOrderId.equals(p.getRazorpayOrderId()))
-                        .findFirst()
+                Payment payment = paymentRepository.findByRazorpayOrderId(razorpayOrderId)
                         .orElseThrow(() -> new RuntimeException("Payment not found for Razorpay order: " + razorpayOrderId));
 
-                if ("captured".equals(status)) {
-                    payment.setStatus(PaymentStatus.SUCCESS);
-                    payment.setPaymentId(razorpayPaymentId);
-                    
-                    // Update order status to PAID
-                    orderService.updateOrderStatus(payment.getOrderId(), OrderStatus.PAID);
-                    log.info("Razorpay payment successful. Order marked as PAID");
+                // Razorpay retries webhooks; only the first delivery settles the payment
+                PaymentStatus target = "captured".equals(status) ? PaymentStatus.SUCCESS : PaymentStatus.FAILED;
+                if (settle(payment, target, "captured".equals(status) ? razorpayPaymentId : null)) {
+                    log.info("Razorpay payment {}. Order marked as {}", target, orderStatus(target));
+                    outcome = target.name();
                 } else {
-                    payment.setStatus(PaymentStatus.FAILED);
-                    orderService.updateOrderStatus(payment.getOrderId(), OrderStatus.FAILED);
-                    log.info("Razorpay payment failed. Order marked as FAILED");
+                    log.info("Payment for Razorpay order {} already settled; webhook ignored", razorpayOrderId);
+                    outcome = "duplicate";
                 }
-
-                paymentRepository.save(payment);
             }
         } catch (Exception e) {
+            outcome = "error";
             log.error("Failed to process Razorpay webhook", e);
             throw new RuntimeException("Failed to process Razorpay webhook", e);
+        } finally {
+            webhook.finish(outcome);
         }
     }
 
@@ -136,12 +160,8 @@ public class PaymentService {
 
         try {
             // Verify signature
-            JSONObject options = new JSONObject();
-            options.put("razorpay_order_id", request.getRazorpay_order_id());
-            options.put("razorpay_payment_id", request.getRazorpay_payment_id());
-            options.put("razorpay_signature", request.getRazorpay_signature());
-
-            boolean isValid = Utils.verifyPaymentSignature(options, razorpayKeySecret);
+            boolean isValid = signatureVerifier.verifyPayment(request.getRazorpay_order_id(),
+                    request.getRazorpay_payment_id(), request.getRazorpay_signature());
 
             if (isValid) {
                 log.info("Payment signature verified successfully");
@@ -150,13 +170,12 @@ public class PaymentService {
                 Payment payment = paymentRepository.findByRazorpayOrderId(request.getRazorpay_order_id())
                         .orElseThrow(() -> new RuntimeException("Payment not found"));
 
-                payment.setStatus(PaymentStatus.SUCCESS);
-                payment.setPaymentId(request.getRazorpay_payment_id());
-                paymentRepository.save(payment);
-
-                // Update order status
-                orderService.updateOrderStatus(request.getOrderId(), OrderStatus.PAID);
-                log.info("Payment verified and order updated to PAID");
+                // The signature covers the Razorpay order, so the order to move is the one stored with the payment
+                if (settle(payment, PaymentStatus.SUCCESS, request.getRazorpay_payment_id())) {
+                    log.info("Payment verified and order updated to PAID");
+                } else {
+                    log.info("Payment {} already settled; verification replay ignored", payment.getId());
+                }
             } else {
                 log.error("Payment signature verification failed");
                 throw new RuntimeException("Invalid payment signature");
@@ -167,6 +186,54 @@ public class PaymentService {
         }
     }
 
+    // Moves a PENDING payment to its final status and queues its event in one conditional write, then moves
+    // the order. Returns false when the payment was already settled (a webhook retry, a resent verify call or
+    // reconciliation got there first), in which case nothing is written. Touching only these fields leaves
+    // the relay's bookkeeping on pendingEvents intact. orderSyncPending stays set until the order has moved,
+    // so a failure in between is finished by reconciliation's order pass.
+    private boolean settle(Payment payment, PaymentStatus status, String paymentId) {
+        Update update = new Update().set("status", status)
+                .set("orderSyncPending", true)
+                .push("pendingEvents", OutboxEvent.of("Payment", payment.getId(),
+                        status == PaymentStatus.SUCCESS ? "PaymentSucceeded" : "PaymentFailed",
+                        Map.of("orderId", payment.getOrderId(),
+                                "status", status.name(),
+                                "amountPaise", amountPaise(payment))));
+        if (paymentId != null) {
+            update.set("paymentId", paymentId);
+        }
+        Payment settled = mongoTemplate.findAndModify(
+                Query.query(Criteria.where("_id").is(payment.getId()).and("status").is(PaymentStatus.PENDING)),
+                update,
+                FindAndModifyOptions.options().returnNew(true),
+                Payment.class);
+        if (settled == null) {
+            return false;
+        }
+
+        orderService.updateOrderStatus(settled.getOrderId(), orderStatus(status));
+        mongoTemplate.updateFirst(Query.query(Criteria.where("_id").is(settled.getId())),
+                new Update().unset("orderSyncPending"), Payment.class);
+        return true;
+    }
+
+    private static OrderStatus orderStatus(PaymentStatus status) {
+        return status == PaymentStatus.SUCCESS ? OrderStatus.PAID : OrderStatus.FAILED;
+    }
+
+    // Queued on the document itself, so it is saved by the same write as the status change
+    private void addEvent(Payment payment, String type) {
+        payment.getPendingEvents().add(OutboxEvent.of("Payment", payment.getId(), type, Map.of(
+                "orderId", payment.getOrderId(),
+                "status", payment.getStatus().name(),
+                "amountPaise", amountPaise(payment))));
+    }
+
+    // Payments created before amounts were stored in paise only have the rupee amount
+    static long amountPaise(Payment payment) {
+        return payment.getAmountPaise() != null ? payment.getAmountPaise() : Money.toPaise(payment.getAmount());
+    }
+
     private PaymentResponse mapToPaymentResponse(Payment payment) {
         PaymentResponse response = new PaymentResponse();
         response.setId(payment.getId());
@@ -0,0 +1,38 @@
+package com.ecommerce.ecommerce.service;
+
+import com.ecommerce.ecommerce.pricing.PriceRule;
+import com.ecommerce.ecommerce.pricing.PricingContext;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Service;
+
+import java.util.Comparator;
+
+@Service
+@Slf4j
+public class PricingService {
+
+    private static final ThreadLocal<PricingContext> CONTEXT = ThreadLocal.withInitial(PricingContext::new);
+
+    // Compiled once at startup: every rule bean, flattened into an array in stage order
+    private final PriceRule[] pipeline;
+
+    public PricingService(ObjectProvider<PriceRule> rules) {
+        this.pipeline = rules.orderedStream()
+                .sorted(Comparator.comparing(PriceRule::stage))
+                .toArray(PriceRule[]::new);
+        log.info("Pricing pipeline compiled with {} rules", pipeline.length);
+    }
+
+    // Returns this thread's cleared context; fill it with addLine and pass it to price
+    public PricingContext newContext() {
+        return CONTEXT.get().reset();
+    }
+
+    public PricingContext price(PricingContext context) {
+        for (PriceRule rule : pipeline) {
+            rule.apply(context);
+        }
+        return context;
+    }
+}
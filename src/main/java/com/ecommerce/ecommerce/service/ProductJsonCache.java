@@ -0,0 +1,160 @@
+package com.ecommerce.ecommerce.service;
+
+import com.ecommerce.ecommerce.model.Product;
+import jakarta.annotation.PostConstruct;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.GZIPOutputStream;
+
+// Keeps the encoded JSON of each product, and of whole list responses, so catalog reads do not run
+// Jackson again until a product's version changes.
+@Component
+@RequiredArgsConstructor
+public class ProductJsonCache implements CacheInvalidationBus.Listener {
+
+    private static final byte[] EMPTY_LIST = {'[', ']'};
+
+    private final JsonMapper jsonMapper;
+    private final CacheInvalidationBus invalidationBus;
+
+    private final Map<String, EncodedJson> products = new ConcurrentHashMap<>();
+    private final Map<String, Snapshot> snapshots = new ConcurrentHashMap<>();
+
+    @Value("${catalog.json-cache.gzip-min-bytes:1024}")
+    private int gzipMinBytes;
+
+    @PostConstruct
+    void subscribe() {
+        invalidationBus.subscribe("products", this);
+    }
+
+    // Reads may come from secondaries that lag by different amounts, so an older version never replaces a
+    // newer entry; it is answered with the newer bytes instead
+    public EncodedJson product(Product product) {
+        long version = versionOf(product);
+        EncodedJson cached = products.get(product.getId());
+        if (cached != null && cached.getVersion() >= version) {
+            return cached;
+        }
+
+        EncodedJson encoded = new EncodedJson(version, jsonMapper.writeValueAsBytes(product), gzipMinBytes);
+        return products.merge(product.getId(), encoded,
+                (current, candidate) -> candidate.getVersion() > current.getVersion() ? candidate : current);
+    }
+
+    // Named list responses (e.g. the full catalog) are reused whole while every member keeps its version
+    public EncodedJson list(String snapshotKey, List<Product> productList) {
+        String[] ids = new String[productList.size()];
+        long[] versions = new long[productList.size()];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = productList.get(i).getId();
+            versions[i] = versionOf(productList.get(i));
+        }
+
+        Snapshot cached = snapshots.get(snapshotKey);
+        if (cached != null && Arrays.equals(cached.ids, ids) && Arrays.equals(cached.versions, versions)) {
+            return cached.json;
+        }
+
+        EncodedJson encoded = list(productList);
+        snapshots.put(snapshotKey, new Snapshot(ids, versions, encoded));
+        return encoded;
+    }
+
+    // Ad-hoc lists (e.g. search results) are stitched together from the per-product bytes
+    public EncodedJson list(List<Product> productList) {
+        if (productList.isEmpty()) {
+            return new EncodedJson(0, EMPTY_LIST, gzipMinBytes);
+        }
+
+        byte[][] parts = new byte[productList.size()][];
+        int length = 1 + parts.length; // brackets and commas
+        for (int i = 0; i < parts.length; i++) {
+            parts[i] = product(productList.get(i)).getIdentity();
+            length += parts[i].length;
+        }
+
+        byte[] json = new byte[length];
+        int offset = 0;
+        json[offset++] = '[';
+        for (int i = 0; i < parts.length; i++) {
+            if (i > 0) {
+                json[offset++] = ',';
+            }
+            System.arraycopy(parts[i], 0, json, offset, parts[i].length);
+            offset += parts[i].length;
+        }
+        json[offset] = ']';
+
+        return new EncodedJson(0, json, gzipMinBytes);
+    }
+
+    @Override
+    public void invalidate(String productId) {
+        products.remove(productId);
+        snapshots.clear();
+    }
+
+    @Override
+    public void invalidateAll() {
+        products.clear();
+        snapshots.clear();
+    }
+
+    private long versionOf(Product product) {
+        return product.getVersion() != null ? product.getVersion() : 0L;
+    }
+
+    private record Snapshot(String[] ids, long[] versions, EncodedJson json) {
+    }
+
+    @Getter
+    public static final class EncodedJson {
+
+        private final long version;
+        private final byte[] identity;
+        private final int gzipMinBytes;
+        private volatile byte[] gzip;
+
+        EncodedJson(long version, byte[] identity, int gzipMinBytes) {
+            this.version = version;
+            this.identity = identity;
+            this.gzipMinBytes = gzipMinBytes;
+        }
+
+        public boolean isCompressible() {
+            return identity.length >= gzipMinBytes;
+        }
+
+        // Compressed lazily on first request and then kept alongside the identity bytes
+        public byte[] getGzip() {
+            byte[] compressed = gzip;
+            if (compressed == null) {
+                compressed = compress(identity);
+                gzip = compressed;
+            }
+            return compressed;
+        }
+
+        private static byte[] compress(byte[] json) {
+            ByteArrayOutputStream buffer = new ByteArrayOutputStream(json.length / 4 + 32);
+            try (GZIPOutputStream gzip = new GZIPOutputStream(buffer)) {
+                gzip.write(json);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to gzip catalog JSON", e);
+            }
+            return buffer.toByteArray();
+        }
+    }
+}
@@ -1,13 +1,28 @@
 package com.ecommerce.ecommerce.service;
 
 import com.ecommerce.ecommerce.dto.CreateProductRequest;
+import com.ecommerce.ecommerce.inventory.StockExpressions;
 import com.ecommerce.ecommerce.model.Product;
+import com.ecommerce.ecommerce.recommendation.CoOccurrenceIndex;
 import com.ecommerce.ecommerce.repository.ProductRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.BasicQuery;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
 
 @Service
 @RequiredArgsConstructor
@@ -15,6 +30,11 @@ import java.util.List;
 public class ProductService {
 
     private final ProductRepository productRepository;
+    private final CacheInvalidationBus invalidationBus;
+    private final MongoTemplate mongoTemplate;
+    private final ReadRoutingService readRoutingService;
+    private final RecommendationService recommendationService;
+    private final SearchResultCache searchResultCache;
 
     public Product createProduct(CreateProductRequest request) {
         log.info("Creating product: {}", request.getName());
@@ -24,42 +44,143 @@ public class ProductService {
         product.setDescription(request.getDescription());
         product.setPrice(request.getPrice());
         product.setStock(request.getStock());
+        product.setVersion(0L);
 
         Product savedProduct = productRepository.save(product);
         log.info("Product created with ID: {}", savedProduct.getId());
+        searchResultCache.bumpCatalogVersion();
         
         return savedProduct;
     }
 
     public List<Product> getAllProducts() {
         log.info("Fetching all products");
-        return productRepository.findAll();
+        return mongoTemplate.find(readRoutingService.route("product-find-all", new Query()), Product.class);
     }
 
+    // Browse path: may be served by a secondary within the route's staleness bound
+    public Product getCatalogProduct(String id) {
+        log.debug("Fetching catalog product with ID: {}", id);
+        return findProduct("product-browse-by-id", id);
+    }
+
+    // Checkout and stock path: always read from the primary
     public Product getProductById(String id) {
-        log.info("Fetching product with ID: {}", id);
-        return productRepository.findById(id)
-                .orElseThrow(() -> new RuntimeException("Product not found with ID: " + id));
+        log.debug("Fetching product with ID: {}", id);
+        return findProduct("product-find-by-id", id);
     }
 
+    // Batch forms of the two reads above: one query for all IDs instead of one per cart or order line.
+    // Products that do not exist are absent from the map.
+    public Map<String, Product> getCatalogProducts(Collection<String> ids) {
+        return findProducts("product-browse-by-id", ids);
+    }
+
+    public Map<String, Product> getProductsByIds(Collection<String> ids) {
+        return findProducts("product-find-by-id", ids);
+    }
+
+    // Cached by normalized query; the cache holds product IDs and the products themselves are loaded fresh
     public List<Product> searchProducts(String query) {
         log.info("Searching products with query: {}", query);
-        return productRepository.findByNameContainingIgnoreCase(query);
+        String key = SearchResultCache.normalize(query);
+
+        List<String> productIds = searchResultCache.get(key);
+        if (productIds == null) {
+            long version = searchResultCache.currentVersion();
+            Query search = Query.query(searchCriteria(key)).with(Sort.by("name", "_id"));
+            search.fields().include("_id");
+            // Primary only: a lagging secondary could miss a product created before the version was read,
+            // and that stale membership would then be cached under the current version
+            productIds = mongoTemplate.find(readRoutingService.route("product-search-cache-fill", search), Product.class).stream()
+                    .map(Product::getId)
+                    .toList();
+            searchResultCache.put(key, version, productIds);
+        }
+
+        Map<String, Product> products = getCatalogProducts(productIds);
+        List<Product> results = new ArrayList<>(productIds.size());
+        for (String productId : productIds) {
+            Product product = products.get(productId);
+            if (product != null) {
+                results.add(product);
+            }
+        }
+        return results;
+    }
+
+    // Every token must appear somewhere in the name, in any order, ignoring case
+    public static Criteria searchCriteria(String query) {
+        List<Criteria> tokens = new ArrayList<>();
+        for (String token : SearchResultCache.normalize(query).split(" ")) {
+            tokens.add(Criteria.where("name").regex(Pattern.quote(token), "i"));
+        }
+        return tokens.size() == 1 ? tokens.getFirst() : new Criteria().andOperator(tokens);
+    }
+
+    // Companions come from the in-memory co-occurrence index; products are hydrated in one query
+    public List<Product> getFrequentlyBoughtTogether(String productId, int limit) {
+        log.info("Fetching frequently bought together for product: {}", productId);
+
+        List<String> companionIds = recommendationService.getCompanions(productId, limit).stream()
+                .map(CoOccurrenceIndex.Companion::productId)
+                .toList();
+        if (companionIds.isEmpty()) {
+            return List.of();
+        }
+
+        Query byIds = Query.query(Criteria.where("_id").in(companionIds));
+        Map<String, Product> products = new HashMap<>();
+        for (Product product : mongoTemplate.find(readRoutingService.route("product-companions", byIds), Product.class)) {
+            products.put(product.getId(), product);
+        }
+
+        List<Product> companions = new ArrayList<>(companionIds.size());
+        for (String companionId : companionIds) {
+            Product product = products.get(companionId);
+            if (product != null) {
+                companions.add(product);
+            }
+        }
+        return companions;
     }
 
+    // Adjusts un-located stock (and so the total) in one guarded update; per-warehouse stock is set
+    // through InventoryService, and neither path rewrites the other's fields
     public void updateStock(String productId, Integer quantity) {
         log.info("Updating stock for product {} by {}", productId, quantity);
-        
-        Product product = getProductById(productId);
-        int newStock = product.getStock() + quantity;
-        
-        if (newStock < 0) {
+
+        Query guarded = new BasicQuery(new Document("_id", productId)
+                .append("$expr", StockExpressions.unlocatedAtLeast(-quantity)));
+        Product updated = mongoTemplate.findAndModify(guarded, new Update().inc("stock", quantity).inc("version", 1),
+                FindAndModifyOptions.options().returnNew(true), Product.class);
+        if (updated == null) {
+            Product product = getProductById(productId); // Throws when the product does not exist
             throw new RuntimeException("Insufficient stock for product: " + product.getName());
         }
-        
-        product.setStock(newStock);
-        productRepository.save(product);
-        
-        log.info("Stock updated for product {}. New stock: {}", productId, newStock);
+        invalidationBus.invalidate("products", productId);
+
+        log.info("Stock updated for product {}. New stock: {}", productId, updated.getStock());
+    }
+
+    private Map<String, Product> findProducts(String route, Collection<String> ids) {
+        Map<String, Product> products = new HashMap<>();
+        if (ids.isEmpty()) {
+            return products;
+        }
+        Query byIds = Query.query(Criteria.where("_id").in(ids));
+        for (Product product : mongoTemplate.find(readRoutingService.route(route, byIds), Product.class)) {
+            products.put(product.getId(), product);
+        }
+        return products;
+    }
+
+    private Product findProduct(String route, String id) {
+        Query byId = Query.query(Criteria.where("_id").is(id));
+        Product product = mongoTemplate.findOne(readRoutingService.route(route, byId), Product.class);
+        if (product == null) {
+            throw new RuntimeException("Product not found with ID: " + id);
+        }
+        return product;
     }
 }
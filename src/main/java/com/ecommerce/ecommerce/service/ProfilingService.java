@@ -0,0 +1,138 @@
+package com.ecommerce.ecommerce.service;
+
+import com.ecommerce.ecommerce.exception.ResourceNotFoundException;
+import com.ecommerce.ecommerce.profiling.CheckoutPhaseEvent;
+import com.ecommerce.ecommerce.profiling.RazorpayCallEvent;
+import com.ecommerce.ecommerce.profiling.WebhookEvent;
+import jakarta.annotation.PreDestroy;
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+import jdk.jfr.RecordingState;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.ParseException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// Time-boxed JFR recordings started over HTTP. Each recording uses one of the JDK's built-in settings
+// ("default" is low overhead, "profile" samples more) plus the application's checkout, Razorpay and
+// webhook events, and stops itself after its duration.
+@Service
+@Slf4j
+@ConditionalOnProperty(name = "profiling.endpoint.enabled", havingValue = "true")
+public class ProfilingService {
+
+    private final Map<Long, Recording> recordings = new LinkedHashMap<>();
+
+    @Value("${profiling.max-duration:5m}")
+    private Duration maxDuration;
+
+    @Value("${profiling.max-recordings:5}")
+    private int maxRecordings;
+
+    public synchronized Map<String, Object> start(Duration duration, String settings) {
+        for (Recording recording : recordings.values()) {
+            if (recording.getState() == RecordingState.RUNNING) {
+                throw new IllegalStateException("Recording " + recording.getId() + " is already running");
+            }
+        }
+
+        Configuration configuration;
+        try {
+            configuration = Configuration.getConfiguration(settings);
+        } catch (IOException | ParseException e) {
+            throw new IllegalArgumentException("Unknown JFR settings: " + settings);
+        }
+
+        Recording recording = new Recording(configuration);
+        recording.setName("ecommerce-" + Instant.now());
+        recording.setToDisk(true);
+        recording.setDuration(duration.compareTo(maxDuration) > 0 ? maxDuration : duration);
+        recording.enable(CheckoutPhaseEvent.class);
+        recording.enable(RazorpayCallEvent.class);
+        recording.enable(WebhookEvent.class);
+        recording.start();
+
+        recordings.put(recording.getId(), recording);
+        evictOldRecordings();
+        log.info("Started JFR recording {} for {} with '{}' settings", recording.getId(), recording.getDuration(), settings);
+        return describe(recording);
+    }
+
+    public synchronized Map<String, Object> stop(long id) {
+        Recording recording = find(id);
+        if (recording.getState() == RecordingState.RUNNING) {
+            recording.stop();
+        }
+        return describe(recording);
+    }
+
+    public synchronized List<Map<String, Object>> list() {
+        List<Map<String, Object>> result = new ArrayList<>();
+        for (Recording recording : recordings.values()) {
+            result.add(describe(recording));
+        }
+        return result;
+    }
+
+    // Writes the recording so far to a temporary file; the caller deletes it after streaming
+    public synchronized Path dump(long id) {
+        Recording recording = find(id);
+        try {
+            Path file = Files.createTempFile("recording-" + id + "-", ".jfr");
+            recording.dump(file);
+            return file;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to dump JFR recording " + id, e);
+        }
+    }
+
+    public synchronized void close(long id) {
+        find(id).close();
+        recordings.remove(id);
+    }
+
+    @PreDestroy
+    synchronized void closeAll() {
+        recordings.values().forEach(Recording::close);
+        recordings.clear();
+    }
+
+    private Recording find(long id) {
+        Recording recording = recordings.get(id);
+        if (recording == null) {
+            throw new ResourceNotFoundException("Recording not found with ID: " + id);
+        }
+        return recording;
+    }
+
+    // Finished recordings keep their data on disk until closed, so only the newest few are retained
+    private void evictOldRecordings() {
+        while (recordings.size() > maxRecordings) {
+            Long oldest = recordings.keySet().iterator().next();
+            recordings.remove(oldest).close();
+        }
+    }
+
+    private static Map<String, Object> describe(Recording recording) {
+        Map<String, Object> info = new LinkedHashMap<>();
+        info.put("id", recording.getId());
+        info.put("name", recording.getName());
+        info.put("state", recording.getState().name());
+        info.put("startTime", recording.getStartTime());
+        info.put("duration", recording.getDuration() != null ? recording.getDuration().toString() : null);
+        info.put("size", recording.getSize());
+        return info;
+    }
+}
@@ -0,0 +1,90 @@
+package com.ecommerce.ecommerce.service;
+
+import com.ecommerce.ecommerce.dto.OrderResponse;
+import com.ecommerce.ecommerce.model.Order;
+import com.ecommerce.ecommerce.model.Payment;
+import com.ecommerce.ecommerce.model.Product;
+import com.ecommerce.ecommerce.repository.ReactiveOrderRepository;
+import com.ecommerce.ecommerce.repository.ReactivePaymentRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.Optional;
+
+// Non-blocking counterparts of the catalog and order reads. Product queries use the same read routes as
+// ProductService; order reads fall through to the archive like OrderService does.
+@Service
+@RequiredArgsConstructor
+@Slf4j
+@ConditionalOnProperty(name = "reactive.read-path.enabled", havingValue = "true")
+public class ReactiveReadService {
+
+    private final ReactiveMongoTemplate reactiveMongoTemplate;
+    private final ReactiveOrderRepository reactiveOrderRepository;
+    private final ReactivePaymentRepository reactivePaymentRepository;
+    private final ReadRoutingService readRoutingService;
+    private final OrderArchiveService orderArchiveService;
+
+    public Flux<Product> getAllProducts() {
+        return reactiveMongoTemplate.find(readRoutingService.route("product-find-all", new Query()), Product.class);
+    }
+
+    public Mono<Product> getProductById(String id) {
+        Query byId = Query.query(Criteria.where("_id").is(id));
+        return reactiveMongoTemplate.findOne(readRoutingService.route("product-browse-by-id", byId), Product.class)
+                .switchIfEmpty(Mono.error(() -> new RuntimeException("Product not found with ID: " + id)));
+    }
+
+    public Flux<Product> searchProducts(String query) {
+        Query search = Query.query(ProductService.searchCriteria(query)).with(Sort.by("name", "_id"));
+        return reactiveMongoTemplate.find(readRoutingService.route("product-search", search), Product.class);
+    }
+
+    public Mono<OrderResponse> getOrderById(String orderId) {
+        Mono<Order> order = reactiveOrderRepository.findById(orderId)
+                .switchIfEmpty(orderArchiveService.hasArchive()
+                        ? reactiveMongoTemplate.findById(orderId, Order.class, OrderArchiveService.ARCHIVE_COLLECTION)
+                        : Mono.empty())
+                .switchIfEmpty(Mono.error(() -> new RuntimeException("Order not found with ID: " + orderId)));
+
+        // Order and payment lookups run concurrently
+        return Mono.zip(order, reactivePaymentRepository.findByOrderId(orderId).map(Optional::of).defaultIfEmpty(Optional.empty()))
+                .map(tuple -> mapToOrderResponse(tuple.getT1(), tuple.getT2().orElse(null)));
+    }
+
+    public Flux<Order> getUserOrders(String userId) {
+        Flux<Order> hot = reactiveOrderRepository.findByUserId(userId);
+        if (!orderArchiveService.hasArchive()) {
+            return hot;
+        }
+        // Hot orders come first, so distinct drops the archived copy an interrupted archive run left behind
+        return hot.concatWith(reactiveMongoTemplate.find(Query.query(Criteria.where("userId").is(userId)),
+                        Order.class, OrderArchiveService.ARCHIVE_COLLECTION))
+                .distinct(Order::getId);
+    }
+
+    private OrderResponse mapToOrderResponse(Order order, Payment payment) {
+        OrderResponse response = new OrderResponse();
+        response.setId(order.getId());
+        response.setUserId(order.getUserId());
+        response.setTotalAmount(order.getTotalAmount());
+        response.setSubtotalPaise(order.getSubtotalPaise());
+        response.setDiscountPaise(order.getDiscountPaise());
+        response.setTaxPaise(order.getTaxPaise());
+        response.setTotalPaise(order.getTotalPaise());
+        response.setStatus(order.getStatus());
+        response.setCreatedAt(order.getCreatedAt());
+        response.setItems(order.getItems());
+        response.setShipments(order.getShipments());
+        response.setPayment(payment);
+        return response;
+    }
+}
@@ -0,0 +1,63 @@
+package com.ecommerce.ecommerce.service;
+
+import com.ecommerce.ecommerce.config.ReadRoutingProperties;
+import com.mongodb.ReadConcern;
+import com.mongodb.ReadConcernLevel;
+import com.mongodb.ReadPreference;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.mongodb.core.aggregation.AggregationOptions;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+// Resolves named read routes from mongodb.routing.routes.* into driver read preferences and concerns.
+// Unknown routes read from the primary with the connection's default concern.
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ReadRoutingService {
+
+    private final ReadRoutingProperties properties;
+
+    private final Map<String, ReadPreference> readPreferences = new ConcurrentHashMap<>();
+
+    public Query route(String routeName, Query query) {
+        ReadRoutingProperties.Route route = properties.getRoutes().get(routeName);
+        if (route == null) {
+            return query;
+        }
+
+        query.withReadPreference(readPreferences.computeIfAbsent(routeName, name -> toReadPreference(name, route)));
+        if (route.getReadConcern() != null) {
+            query.withReadConcern(new ReadConcern(ReadConcernLevel.fromString(route.getReadConcern())));
+        }
+        return query;
+    }
+
+    // Same routes for aggregations, which take their read settings from the options instead of a Query
+    public AggregationOptions routeAggregation(String routeName) {
+        AggregationOptions.Builder options = AggregationOptions.builder();
+        ReadRoutingProperties.Route route = properties.getRoutes().get(routeName);
+        if (route != null) {
+            options.readPreference(readPreferences.computeIfAbsent(routeName, name -> toReadPreference(name, route)));
+            if (route.getReadConcern() != null) {
+                options.readConcern(new ReadConcern(ReadConcernLevel.fromString(route.getReadConcern())));
+            }
+        }
+        return options.build();
+    }
+
+    private ReadPreference toReadPreference(String routeName, ReadRoutingProperties.Route route) {
+        ReadPreference readPreference = route.getMaxStaleness() != null
+                ? ReadPreference.valueOf(route.getReadPreference(), List.of(),
+                        route.getMaxStaleness().toSeconds(), TimeUnit.SECONDS)
+                : ReadPreference.valueOf(route.getReadPreference());
+        log.info("Read route {} resolved to {}", routeName, readPreference);
+        return readPreference;
+    }
+}
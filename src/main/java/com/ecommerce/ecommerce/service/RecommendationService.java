@@ -0,0 +1,165 @@
+package com.ecommerce.ecommerce.service;
+
+import com.ecommerce.ecommerce.model.Order;
+import com.ecommerce.ecommerce.model.OrderItem;
+import com.ecommerce.ecommerce.recommendation.CoOccurrenceIndex;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+
+// "Frequently bought together" from order history. The index is built by streaming orders once and is
+// then kept current with every new order; periodic rebuilds pick up orders placed on other nodes.
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class RecommendationService {
+
+    // Orders created this long before a rebuild starts may still be recorded after it started
+    private static final Duration RECORD_SKEW = Duration.ofMinutes(5);
+
+    private final MongoTemplate mongoTemplate;
+
+    @Value("${recommendations.max-basket-size:50}")
+    private int maxBasketSize;
+
+    @Value("${recommendations.rebuild-interval-ms:3600000}")
+    private long rebuildIntervalMillis;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private CoOccurrenceIndex index;
+    // Baskets recorded while a rebuild streams, by order ID; null when no rebuild is running
+    private Map<String, List<String>> recordedDuringRebuild;
+    private ScheduledExecutorService scheduler;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        index = new CoOccurrenceIndex(maxBasketSize);
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "recommendations");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::rebuildQuietly, 0, rebuildIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    void stop() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+    }
+
+    public void recordOrder(Order order) {
+        List<String> productIds = productIds(order.getItems());
+        lock.writeLock().lock();
+        try {
+            if (index != null) {
+                index.addBasket(productIds);
+            }
+            if (recordedDuringRebuild != null) {
+                recordedDuringRebuild.put(order.getId(), productIds);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public List<CoOccurrenceIndex.Companion> getCompanions(String productId, int limit) {
+        lock.readLock().lock();
+        try {
+            return index != null ? index.topCompanions(productId, limit) : List.of();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Orders recorded while the stream runs may or may not be in it. At the swap, the recorded baskets the
+    // stream did not return are added to the new index, so none is lost and none is counted twice.
+    public void rebuild() {
+        long started = System.currentTimeMillis();
+        CoOccurrenceIndex rebuilt = new CoOccurrenceIndex(maxBasketSize);
+        Instant recentFrom = Instant.ofEpochMilli(started).minus(RECORD_SKEW);
+        Set<String> streamedRecent = new HashSet<>();
+
+        lock.writeLock().lock();
+        try {
+            recordedDuringRebuild = new HashMap<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        Query itemsOnly = new Query();
+        itemsOnly.fields().include("items.productId").include("createdAt");
+        long orders = 0;
+        try {
+            for (String collection : List.of(mongoTemplate.getCollectionName(Order.class), OrderArchiveService.ARCHIVE_COLLECTION)) {
+                try (Stream<Order> stream = mongoTemplate.stream(itemsOnly, Order.class, collection)) {
+                    for (Order order : (Iterable<Order>) stream::iterator) {
+                        rebuilt.addBasket(productIds(order.getItems()));
+                        if (order.getCreatedAt() != null && !order.getCreatedAt().isBefore(recentFrom)) {
+                            streamedRecent.add(order.getId());
+                        }
+                        orders++;
+                    }
+                }
+            }
+
+            lock.writeLock().lock();
+            try {
+                for (Map.Entry<String, List<String>> recorded : recordedDuringRebuild.entrySet()) {
+                    if (!streamedRecent.contains(recorded.getKey())) {
+                        rebuilt.addBasket(recorded.getValue());
+                    }
+                }
+                index = rebuilt;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        } finally {
+            lock.writeLock().lock();
+            try {
+                recordedDuringRebuild = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+        log.info("Co-occurrence index rebuilt from {} orders over {} products in {} ms",
+                orders, rebuilt.productCount(), System.currentTimeMillis() - started);
+    }
+
+    private void rebuildQuietly() {
+        try {
+            rebuild();
+        } catch (RuntimeException e) {
+            log.warn("Failed to rebuild co-occurrence index", e);
+        }
+    }
+
+    private List<String> productIds(List<OrderItem> items) {
+        List<String> productIds = new ArrayList<>(items.size());
+        for (OrderItem item : items) {
+            productIds.add(item.getProductId());
+        }
+        return productIds;
+    }
+}
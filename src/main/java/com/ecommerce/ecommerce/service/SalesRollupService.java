@@ -0,0 +1,369 @@
+package com.ecommerce.ecommerce.service;
+
+import com.ecommerce.ecommerce.exception.OverloadedException;
+import com.ecommerce.ecommerce.model.Order;
+import com.ecommerce.ecommerce.model.OrderItem;
+import com.ecommerce.ecommerce.model.OrderStatus;
+import com.ecommerce.ecommerce.model.SalesByDay;
+import com.ecommerce.ecommerce.model.SalesByProductDay;
+import com.ecommerce.ecommerce.model.SalesByStatus;
+import com.ecommerce.ecommerce.pricing.Money;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+
+// Keeps the sales_by_* collections up to date as orders change, so reports are point lookups instead
+// of scans over orders. Increments are guarded by the order's own state so replays do not double count.
+// Revenue is what the order charged (totalPaise, after discounts and tax) everywhere: per status, per day,
+// and per product, where the order total is split over its lines in proportion to their list value.
+//
+// A rebuild replaces the rollups with $out, which would drop increments landing while it aggregates. So
+// while it runs, order writes mark the order rollupDeferred in the same write and skip the increments; the
+// rebuild leaves marked orders out and adds their final state once the new rollups are in place.
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class SalesRollupService {
+
+    public static final DateTimeFormatter DAY = DateTimeFormatter.ofPattern("yyyy-MM-dd").withZone(ZoneOffset.UTC);
+    private static final String STATE_COLLECTION = "sales_rollup_state";
+    private static final String REBUILD = "rebuild";
+
+    private final MongoTemplate mongoTemplate;
+
+    // Writers cache the rebuild flag for this long; a rebuild waits out the grace period before it reads
+    // orders, which must cover this plus the longest order write in flight
+    @Value("${sales.rollup.rebuild.flag-cache-ms:1000}")
+    private long flagCacheMillis;
+
+    @Value("${sales.rollup.rebuild.grace-ms:5000}")
+    private long graceMillis;
+
+    // A rebuild that has not finished within this long is presumed dead and may be taken over
+    @Value("${sales.rollup.rebuild.stale-after:1h}")
+    private Duration staleAfter;
+
+    private volatile boolean rebuilding;
+    private volatile long rebuildingCheckedAt;
+
+    // True while a rebuild is running anywhere; order writes then set rollupDeferred instead of incrementing
+    public boolean isDeferring() {
+        long now = System.currentTimeMillis();
+        if (now - rebuildingCheckedAt >= flagCacheMillis) {
+            rebuilding = mongoTemplate.exists(Query.query(Criteria.where("_id").is(REBUILD)), STATE_COLLECTION);
+            rebuildingCheckedAt = now;
+        }
+        return rebuilding;
+    }
+
+    public void recordOrderCreated(Order order) {
+        if (Boolean.TRUE.equals(order.getRollupDeferred())) {
+            return;
+        }
+        incrementStatus(order.getStatus(), 1, amountPaise(order));
+    }
+
+    // Called with the order as it was before the transition; callers only report real transitions.
+    // deferred is true when the transition's write marked the order rollupDeferred.
+    public void recordStatusChange(Order previous, OrderStatus newStatus, boolean deferred) {
+        // A marked order is counted from its final state when the rebuild drains it, so only paidAt moves
+        boolean apply = !deferred && !Boolean.TRUE.equals(previous.getRollupDeferred());
+        if (apply) {
+            long amount = amountPaise(previous);
+            incrementStatus(previous.getStatus(), -1, -amount);
+            incrementStatus(newStatus, 1, amount);
+        }
+
+        if (newStatus == OrderStatus.PAID) {
+            recordSale(previous.getId(), apply);
+        } else if (previous.getStatus() == OrderStatus.PAID) {
+            reverseSale(previous.getId(), apply);
+        }
+    }
+
+    private void recordSale(String orderId, boolean apply) {
+        // Claim the order's sale exactly once; paidAt doubles as the marker and the rollup day
+        Instant paidAt = Instant.now();
+        Order order = mongoTemplate.findAndModify(
+                Query.query(Criteria.where("_id").is(orderId).and("paidAt").exists(false)),
+                new Update().set("paidAt", paidAt),
+                Order.class);
+        if (order == null) {
+            log.debug("Sales for order {} already recorded", orderId);
+            return;
+        }
+        if (apply) {
+            applySale(order, DAY.format(paidAt), 1);
+        }
+    }
+
+    // Clearing paidAt releases the claim, so the sale is taken back exactly once, from the day it was added to
+    private void reverseSale(String orderId, boolean apply) {
+        Order order = mongoTemplate.findAndModify(
+                Query.query(Criteria.where("_id").is(orderId).and("paidAt").exists(true)),
+                new Update().unset("paidAt"),
+                Order.class);
+        if (order == null) {
+            log.debug("Sales for order {} already reversed", orderId);
+            return;
+        }
+        if (apply) {
+            applySale(order, DAY.format(order.getPaidAt()), -1);
+        }
+    }
+
+    private void applySale(Order order, String day, int sign) {
+        long[] lineRevenue = lineRevenuePaise(order);
+        long orderUnits = 0;
+
+        BulkOperations productDays = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, SalesByProductDay.class);
+        for (int line = 0; line < lineRevenue.length; line++) {
+            OrderItem item = order.getItems().get(line);
+            orderUnits += item.getQuantity();
+
+            productDays.upsert(
+                    Query.query(Criteria.where("_id").is(new SalesByProductDay.Key(item.getProductId(), day))),
+                    new Update().inc("orders", sign).inc("units", sign * item.getQuantity())
+                            .inc("revenuePaise", sign * lineRevenue[line]));
+        }
+        if (lineRevenue.length > 0) {
+            productDays.execute();
+        }
+
+        mongoTemplate.upsert(
+                Query.query(Criteria.where("_id").is(day)),
+                new Update().inc("orders", sign).inc("units", sign * orderUnits)
+                        .inc("revenuePaise", sign * amountPaise(order)),
+                SalesByDay.class);
+    }
+
+    // The order total split over its lines by list value: each line gets its share rounded down and the
+    // last line the remainder, so lines always sum to the total. rebuild() computes the same split.
+    static long[] lineRevenuePaise(Order order) {
+        List<OrderItem> items = order.getItems();
+        long[] revenue = new long[items.size()];
+        if (revenue.length == 0) {
+            return revenue;
+        }
+
+        long total = amountPaise(order);
+        long gross = 0;
+        for (OrderItem item : items) {
+            gross += Money.toPaise(item.getPrice()) * item.getQuantity();
+        }
+        long allocated = 0;
+        for (int line = 0; line < revenue.length - 1; line++) {
+            OrderItem item = items.get(line);
+            long lineGross = Money.toPaise(item.getPrice()) * item.getQuantity();
+            revenue[line] = gross > 0 ? (long) Math.floor((double) (total * lineGross) / gross) : 0;
+            allocated += revenue[line];
+        }
+        revenue[revenue.length - 1] = total - allocated;
+        return revenue;
+    }
+
+    private void incrementStatus(OrderStatus status, long orders, long amountPaise) {
+        mongoTemplate.upsert(
+                Query.query(Criteria.where("_id").is(status)),
+                new Update().inc("orders", orders).inc("amountPaise", amountPaise),
+                SalesByStatus.class);
+    }
+
+    private static long amountPaise(Order order) {
+        return order.getTotalPaise() != null ? order.getTotalPaise() : Money.toPaise(order.getTotalAmount());
+    }
+
+    public SalesByProductDay getProductDay(String productId, String day) {
+        SalesByProductDay.Key key = new SalesByProductDay.Key(productId, day);
+        SalesByProductDay sales = mongoTemplate.findById(key, SalesByProductDay.class);
+        return sales != null ? sales : new SalesByProductDay(key, 0L, 0L, 0L);
+    }
+
+    // One point lookup per day in the range, independent of how many orders exist
+    public List<SalesByProductDay> getProductDays(String productId, LocalDate from, LocalDate to) {
+        List<SalesByProductDay.Key> keys = new ArrayList<>();
+        for (LocalDate day = from; !day.isAfter(to); day = day.plusDays(1)) {
+            keys.add(new SalesByProductDay.Key(productId, day.toString()));
+        }
+        return mongoTemplate.find(Query.query(Criteria.where("_id").in(keys)), SalesByProductDay.class);
+    }
+
+    public SalesByDay getDay(String day) {
+        SalesByDay sales = mongoTemplate.findById(day, SalesByDay.class);
+        return sales != null ? sales : new SalesByDay(day, 0L, 0L, 0L);
+    }
+
+    public List<SalesByStatus> getStatusTotals() {
+        return mongoTemplate.findAll(SalesByStatus.class);
+    }
+
+    // Recomputes every rollup from the orders collection. Each $out swaps its target in atomically, so
+    // readers see either the old or the rebuilt rollup, never a partial one. Only one rebuild runs at a time
+    // across nodes; a second one fails with OverloadedException.
+    public void rebuild() {
+        Instant started = Instant.now().truncatedTo(ChronoUnit.MILLIS); // As stored, so the release can match it
+        try {
+            // Only inserts when no rebuild holds the flag or its holder went stale
+            mongoTemplate.upsert(
+                    Query.query(Criteria.where("_id").is(REBUILD).and("startedAt").lt(started.minus(staleAfter))),
+                    new Update().set("startedAt", started),
+                    STATE_COLLECTION);
+        } catch (DuplicateKeyException e) {
+            throw new OverloadedException("A sales rollup rebuild is already running", 60);
+        }
+
+        try {
+            log.info("Rebuilding sales rollups from orders");
+            // Writers that read the flag as clear before it was set must finish before orders are read
+            pause(graceMillis);
+            aggregateRollups();
+            long drained = drainDeferred();
+
+            mongoTemplate.remove(Query.query(Criteria.where("_id").is(REBUILD).and("startedAt").is(started)), STATE_COLLECTION);
+            // Writers that still saw the flag may mark orders until their cached flag expires
+            pause(graceMillis);
+            drained += drainDeferred();
+            log.info("Sales rollups rebuilt; {} orders changed during the rebuild were added afterwards", drained);
+        } catch (RuntimeException e) {
+            // Leave the flag: marked orders stay out of the increments until a later rebuild drains them
+            log.error("Sales rollup rebuild failed; the next rebuild takes over once it is stale or retried", e);
+            throw e;
+        }
+    }
+
+    // Clears each marker with the order's state as of that write and counts that state. A transition that
+    // lands after the clear sees no marker and increments normally; one before it is part of the state read.
+    private long drainDeferred() {
+        long drained = 0;
+        while (true) {
+            Order order = mongoTemplate.findAndModify(
+                    Query.query(Criteria.where("rollupDeferred").is(true)),
+                    new Update().unset("rollupDeferred"),
+                    FindAndModifyOptions.options().returnNew(true),
+                    Order.class);
+            if (order == null) {
+                return drained;
+            }
+            incrementStatus(order.getStatus(), 1, amountPaise(order));
+            if (order.getStatus() == OrderStatus.PAID) {
+                // A PAID order whose sale claim has not happened yet is claimed here; the transition's own
+                // claim then finds paidAt set and does nothing
+                Order claimed = mongoTemplate.findAndModify(
+                        Query.query(Criteria.where("_id").is(order.getId()).and("paidAt").exists(false)),
+                        new Update().set("paidAt", Instant.now()),
+                        FindAndModifyOptions.options().returnNew(true),
+                        Order.class);
+                Order sold = claimed != null ? claimed : order;
+                if (sold.getPaidAt() != null) {
+                    applySale(sold, DAY.format(sold.getPaidAt()), 1);
+                }
+            }
+            drained++;
+        }
+    }
+
+    private static void pause(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted during sales rollup rebuild", e);
+        }
+    }
+
+    private void aggregateRollups() {
+
+        // Same amounts as the incremental path: Money.toPaise rounds half up, and the order total is split
+        // over the lines as in lineRevenuePaise
+        Document orderAmount = new Document("$ifNull", List.of("$totalPaise", toPaise("$totalAmount")));
+        Document itemListValue = new Document("$multiply", List.of(toPaise("$$item.price"), "$$item.quantity"));
+        Document itemShare = new Document("$cond", List.of(
+                new Document("$gt", List.of("$_gross", 0)),
+                new Document("$toLong", new Document("$floor", new Document("$divide", List.of(
+                        new Document("$multiply", List.of("$_total", itemListValue)), "$_gross")))),
+                0L));
+        Document lastLine = new Document("$subtract", List.of(new Document("$size", "$_lines"), 1));
+        Document paidDay = new Document("$dateToString", new Document("format", "%Y-%m-%d")
+                .append("date", new Document("$ifNull", List.of("$paidAt", "$createdAt")))
+                .append("timezone", "UTC"));
+
+        aggregateOrders(List.of(
+                new Document("$match", new Document("status", OrderStatus.PAID.name()).append("items.0", new Document("$exists", true))),
+                new Document("$set", new Document("_total", orderAmount)
+                        .append("_gross", new Document("$sum", new Document("$map", new Document("input", "$items")
+                                .append("as", "item").append("in", itemListValue))))),
+                new Document("$set", new Document("_lines", new Document("$map", new Document("input", "$items")
+                        .append("as", "item")
+                        .append("in", new Document("productId", "$$item.productId")
+                                .append("quantity", "$$item.quantity")
+                                .append("revenuePaise", itemShare))))),
+                // The last line takes whatever the rounded-down shares left of the total
+                new Document("$set", new Document("_lines", new Document("$concatArrays", List.of(
+                        new Document("$slice", List.of("$_lines", lastLine)),
+                        List.of(new Document("$mergeObjects", List.of(
+                                new Document("$arrayElemAt", List.of("$_lines", -1)),
+                                new Document("revenuePaise", new Document("$subtract", List.of("$_total",
+                                        new Document("$sum", new Document("$slice", List.of("$_lines.revenuePaise", lastLine))))))))))))),
+                new Document("$unwind", "$_lines"),
+                new Document("$group", new Document("_id", new Document("productId", "$_lines.productId").append("day", paidDay))
+                        .append("orders", new Document("$sum", 1L))
+                        .append("units", new Document("$sum", new Document("$toLong", "$_lines.quantity")))
+                        .append("revenuePaise", new Document("$sum", "$_lines.revenuePaise"))),
+                new Document("$out", mongoTemplate.getCollectionName(SalesByProductDay.class))));
+
+        aggregateOrders(List.of(
+                new Document("$match", new Document("status", OrderStatus.PAID.name())),
+                new Document("$group", new Document("_id", paidDay)
+                        .append("orders", new Document("$sum", 1L))
+                        .append("units", new Document("$sum", new Document("$toLong", new Document("$sum", "$items.quantity"))))
+                        .append("revenuePaise", new Document("$sum", orderAmount))),
+                new Document("$out", mongoTemplate.getCollectionName(SalesByDay.class))));
+
+        aggregateOrders(List.of(
+                new Document("$group", new Document("_id", "$status")
+                        .append("orders", new Document("$sum", 1L))
+                        .append("amountPaise", new Document("$sum", orderAmount))),
+                new Document("$out", mongoTemplate.getCollectionName(SalesByStatus.class))));
+    }
+
+    // Money.toPaise as an expression: rupees * 100, rounded half up
+    private static Document toPaise(String rupees) {
+        return new Document("$toLong", new Document("$floor", new Document("$add", List.of(
+                new Document("$multiply", List.of(rupees, 100)), 0.5))));
+    }
+
+    private void aggregateOrders(List<Document> pipeline) {
+        // Archived orders still count towards sales. An archive run interrupted between its copy and its
+        // delete leaves an order in both collections, so keep one document per _id.
+        List<Document> withArchive = new ArrayList<>(pipeline.size() + 4);
+        withArchive.add(new Document("$unionWith", OrderArchiveService.ARCHIVE_COLLECTION));
+        withArchive.add(new Document("$group", new Document("_id", "$_id").append("order", new Document("$first", "$$ROOT"))));
+        withArchive.add(new Document("$replaceRoot", new Document("newRoot", "$order")));
+        // Orders changed during the rebuild are added from their final state afterwards
+        withArchive.add(new Document("$match", new Document("rollupDeferred", new Document("$ne", true))));
+        withArchive.addAll(pipeline);
+
+        mongoTemplate.getCollection(mongoTemplate.getCollectionName(Order.class))
+                .aggregate(withArchive)
+                .allowDiskUse(true)
+                .toCollection();
+    }
+}
@@ -0,0 +1,177 @@
+package com.ecommerce.ecommerce.service;
+
+import com.ecommerce.ecommerce.search.TinyLfuAdmission;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Caches product ID lists for search queries, keyed by the normalized query. Products are hydrated
+// separately on every request, so stock and price are always current; only membership is cached.
+// Entries are tagged with the catalog version, a counter in Mongo that is incremented whenever the set
+// of searchable products changes. Each node polls it, so a product created on any node invalidates
+// every node's results within one poll interval.
+@Service
+@Slf4j
+public class SearchResultCache {
+
+    private static final String VERSION_COLLECTION = "catalog_versions";
+    private static final String VERSION_ID = "catalog";
+
+    private final MongoTemplate mongoTemplate;
+    private final int capacity;
+    private final TinyLfuAdmission admission;
+    private final Map<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true); // Access order: eldest is the LRU victim
+    private final AtomicLong catalogVersion = new AtomicLong();
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter rejected;
+
+    @Value("${search.cache.max-ids:500}")
+    private int maxIds;
+
+    @Value("${search.cache.version-poll-ms:1000}")
+    private long versionPollMillis;
+
+    private ScheduledExecutorService scheduler;
+
+    private record Entry(long version, List<String> productIds) {
+    }
+
+    public SearchResultCache(MongoTemplate mongoTemplate, MeterRegistry meterRegistry,
+                             @Value("${search.cache.capacity:2000}") int capacity) {
+        this.mongoTemplate = mongoTemplate;
+        this.capacity = capacity;
+        this.admission = new TinyLfuAdmission(capacity);
+        this.hits = Counter.builder("search.cache.requests").tag("result", "hit").register(meterRegistry);
+        this.misses = Counter.builder("search.cache.requests").tag("result", "miss").register(meterRegistry);
+        this.rejected = Counter.builder("search.cache.rejected").description("Entries refused by TinyLFU admission").register(meterRegistry);
+        Gauge.builder("search.cache.size", this, SearchResultCache::size).register(meterRegistry);
+        Gauge.builder("search.cache.hit_ratio", this, SearchResultCache::hitRatio).register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        pollVersionQuietly();
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "catalog-version-poller");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::pollVersionQuietly, versionPollMillis, versionPollMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    void stop() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+    }
+
+    // Lower case, collapsed whitespace, tokens deduplicated and sorted: "Red  Shoe" and "shoe red" share a key
+    public static String normalize(String query) {
+        return String.join(" ", Arrays.stream(query.toLowerCase(Locale.ROOT).trim().split("\\s+"))
+                .filter(token -> !token.isEmpty())
+                .distinct()
+                .sorted()
+                .toList());
+    }
+
+    public long currentVersion() {
+        return catalogVersion.get();
+    }
+
+    // Cached IDs for the normalized query, or null on a miss
+    public List<String> get(String key) {
+        admission.record(key);
+        synchronized (entries) {
+            Entry entry = entries.get(key);
+            if (entry != null && entry.version() == catalogVersion.get()) {
+                hits.increment();
+                return entry.productIds();
+            }
+            if (entry != null) {
+                entries.remove(key);
+            }
+        }
+        misses.increment();
+        return null;
+    }
+
+    // version is the catalog version read before the search ran, so results computed across a bump are dropped
+    public void put(String key, long version, List<String> productIds) {
+        if (version != catalogVersion.get() || productIds.size() > maxIds) {
+            return;
+        }
+        synchronized (entries) {
+            if (entries.size() >= capacity && !entries.containsKey(key)) {
+                String victim = entries.keySet().iterator().next();
+                if (!admission.admit(key, victim)) {
+                    rejected.increment();
+                    return;
+                }
+                entries.remove(victim);
+            }
+            entries.put(key, new Entry(version, List.copyOf(productIds)));
+        }
+    }
+
+    // Called after a write that changes which products a search can return
+    public void bumpCatalogVersion() {
+        Document updated = mongoTemplate.findAndModify(
+                Query.query(Criteria.where("_id").is(VERSION_ID)),
+                new Update().inc("version", 1L),
+                FindAndModifyOptions.options().upsert(true).returnNew(true),
+                Document.class, VERSION_COLLECTION);
+        if (updated != null) {
+            advanceTo(((Number) updated.get("version")).longValue());
+        }
+    }
+
+    private void pollVersionQuietly() {
+        try {
+            Document current = mongoTemplate.findById(VERSION_ID, Document.class, VERSION_COLLECTION);
+            if (current != null) {
+                advanceTo(((Number) current.get("version")).longValue());
+            }
+        } catch (RuntimeException e) {
+            log.warn("Failed to read catalog version", e);
+        }
+    }
+
+    private void advanceTo(long version) {
+        catalogVersion.accumulateAndGet(version, Math::max);
+    }
+
+    private int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    private double hitRatio() {
+        double total = hits.count() + misses.count();
+        return total == 0 ? 0 : hits.count() / total;
+    }
+}
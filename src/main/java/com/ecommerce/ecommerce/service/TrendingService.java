@@ -0,0 +1,219 @@
+package com.ecommerce.ecommerce.service;
+
+import com.ecommerce.ecommerce.config.NodeIdentity;
+import com.ecommerce.ecommerce.dto.TrendingProductResponse;
+import com.ecommerce.ecommerce.model.OrderItem;
+import com.ecommerce.ecommerce.model.TrendingSnapshot;
+import com.ecommerce.ecommerce.trending.CountMinSketch;
+import com.ecommerce.ecommerce.trending.SlidingWindowSketch;
+import com.ecommerce.ecommerce.trending.TopKTracker;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+// "Trending now" from cart adds and orders. Each node counts into a sliding-window Count-Min sketch and
+// tracks heavy hitters in a top-K heap; snapshots in Mongo let every node merge in the others' counts.
+// The leaderboard is recomputed in the background, so serving it is just returning a K-element list.
+// Recording is lock-free in the sketch; only estimates above the heap floor take the short heap lock, and
+// only the thread that crosses a bucket boundary takes the advance lock.
+@Service
+@Slf4j
+public class TrendingService {
+
+    private final MongoTemplate mongoTemplate;
+    private final NodeIdentity nodeIdentity;
+
+    private final int topK;
+    private final int depth;
+    private final int width;
+    private final long cartAddWeight;
+    private final long orderWeight;
+    private final long refreshMillis;
+    private final long snapshotMillis;
+
+    private final SlidingWindowSketch window;
+    private final TopKTracker localTop; // Guarded by itself
+    private final Object advanceLock = new Object();
+    private volatile CountMinSketch remoteWindow;
+    private volatile List<String> remoteCandidates = List.of();
+
+    private volatile List<TrendingProductResponse> leaderboard = List.of();
+    private ScheduledExecutorService scheduler;
+
+    public TrendingService(
+            MongoTemplate mongoTemplate,
+            NodeIdentity nodeIdentity,
+            @Value("${trending.top-k:20}") int topK,
+            @Value("${trending.window.buckets:12}") int bucketCount,
+            @Value("${trending.window.bucket-ms:300000}") long bucketMillis,
+            @Value("${trending.sketch.depth:4}") int depth,
+            @Value("${trending.sketch.width:1024}") int width,
+            @Value("${trending.weight.cart-add:1}") long cartAddWeight,
+            @Value("${trending.weight.order:3}") long orderWeight,
+            @Value("${trending.refresh-ms:1000}") long refreshMillis,
+            @Value("${trending.snapshot-ms:30000}") long snapshotMillis) {
+        this.mongoTemplate = mongoTemplate;
+        this.nodeIdentity = nodeIdentity;
+        this.topK = topK;
+        this.depth = depth;
+        this.width = width;
+        this.cartAddWeight = cartAddWeight;
+        this.orderWeight = orderWeight;
+        this.refreshMillis = refreshMillis;
+        this.snapshotMillis = snapshotMillis;
+        this.window = new SlidingWindowSketch(bucketCount, bucketMillis, depth, width, System.currentTimeMillis());
+        this.localTop = new TopKTracker(topK * 2); // headroom so items near the cut survive window decay
+        this.remoteWindow = new CountMinSketch(depth, width);
+    }
+
+    @PostConstruct
+    void start() {
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "trending");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::refreshQuietly, refreshMillis, refreshMillis, TimeUnit.MILLISECONDS);
+        scheduler.scheduleWithFixedDelay(this::snapshotQuietly, snapshotMillis, snapshotMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    void stop() {
+        scheduler.shutdownNow();
+    }
+
+    public void recordCartAdd(String productId, int quantity) {
+        record(productId, cartAddWeight * quantity);
+    }
+
+    public void recordOrder(List<OrderItem> items) {
+        for (OrderItem item : items) {
+            record(item.getProductId(), orderWeight * item.getQuantity());
+        }
+    }
+
+    public List<TrendingProductResponse> getLeaderboard() {
+        return leaderboard;
+    }
+
+    private void record(String productId, long weight) {
+        long now = System.currentTimeMillis();
+        if (window.isBehind(now)) {
+            advance(now);
+        }
+        window.add(productId, weight);
+
+        long estimate = window.estimate(productId);
+        if (estimate > localTop.floor()) {
+            synchronized (localTop) {
+                localTop.offer(productId, estimate);
+            }
+        }
+    }
+
+    private void advance(long now) {
+        synchronized (advanceLock) {
+            if (window.advance(now)) {
+                synchronized (localTop) {
+                    localTop.rescore(window::estimate);
+                }
+            }
+        }
+    }
+
+    private void refresh() {
+        advance(System.currentTimeMillis());
+
+        Set<String> keys;
+        synchronized (localTop) {
+            keys = new HashSet<>(localTop.keys());
+        }
+        keys.addAll(remoteCandidates);
+        CountMinSketch remoteWindow = this.remoteWindow;
+
+        List<TrendingProductResponse> scored = new ArrayList<>(keys.size());
+        for (String key : keys) {
+            long score = window.estimate(key) + remoteWindow.estimate(key);
+            if (score > 0) {
+                scored.add(new TrendingProductResponse(key, score));
+            }
+        }
+        scored.sort(Comparator.comparing(TrendingProductResponse::getScore).reversed());
+        leaderboard = List.copyOf(scored.subList(0, Math.min(topK, scored.size())));
+    }
+
+    private void snapshot() {
+        TrendingSnapshot local;
+        // Holding the advance lock keeps the ring still while it is copied; adds keep landing meanwhile
+        synchronized (advanceLock) {
+            advance(System.currentTimeMillis());
+            List<byte[]> buckets = new ArrayList<>(window.getBucketCount());
+            for (int age = 0; age < window.getBucketCount(); age++) {
+                buckets.add(window.bucketByAge(age).toBytes());
+            }
+            List<String> candidates;
+            synchronized (localTop) {
+                candidates = localTop.keys();
+            }
+            local = new TrendingSnapshot(nodeIdentity.getNodeId(), depth, width, window.getBucketMillis(),
+                    window.getNewestBucketStart(), buckets, candidates, Instant.now());
+        }
+        mongoTemplate.save(local);
+
+        // Merge other nodes' buckets that still fall inside our window
+        long windowMillis = window.getBucketMillis() * window.getBucketCount();
+        List<TrendingSnapshot> others = mongoTemplate.find(Query.query(Criteria.where("_id").ne(nodeIdentity.getNodeId())
+                .and("updatedAt").gte(Instant.now().minusMillis(windowMillis))), TrendingSnapshot.class);
+
+        CountMinSketch merged = new CountMinSketch(depth, width);
+        Set<String> candidates = new HashSet<>();
+        long windowStart = local.getNewestBucketStart() - windowMillis;
+        for (TrendingSnapshot other : others) {
+            if (other.getDepth() != depth || other.getWidth() != width
+                    || other.getBucketMillis() != window.getBucketMillis()) {
+                log.warn("Skipping trending snapshot from {} with a different sketch shape", other.getNodeId());
+                continue;
+            }
+            for (int age = 0; age < other.getBuckets().size(); age++) {
+                if (other.getNewestBucketStart() - age * other.getBucketMillis() > windowStart) {
+                    merged.merge(CountMinSketch.fromBytes(depth, width, other.getBuckets().get(age)));
+                }
+            }
+            candidates.addAll(other.getCandidates());
+        }
+
+        remoteWindow = merged;
+        remoteCandidates = List.copyOf(candidates);
+    }
+
+    private void refreshQuietly() {
+        try {
+            refresh();
+        } catch (RuntimeException e) {
+            log.warn("Failed to refresh trending leaderboard", e);
+        }
+    }
+
+    private void snapshotQuietly() {
+        try {
+            snapshot();
+        } catch (RuntimeException e) {
+            log.warn("Failed to snapshot trending sketches", e);
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package com.ecommerce.ecommerce.signature;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.util.HexFormat;
+
+// Checks hex-encoded HMAC-SHA256 signatures for one secret. Mac.getInstance and init cost far more
+// than hashing a webhook body, so each thread keeps one keyed Mac and reuses it; doFinal resets it.
+public class HmacSha256Verifier {
+
+    private static final String ALGORITHM = "HmacSHA256";
+    private static final int SIGNATURE_HEX_LENGTH = 64;
+
+    private final ThreadLocal<Mac> macs;
+
+    public HmacSha256Verifier(String secret) {
+        if (secret == null || secret.isEmpty()) {
+            throw new IllegalArgumentException("HMAC secret must not be empty");
+        }
+        SecretKeySpec key = new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), ALGORITHM);
+        this.macs = ThreadLocal.withInitial(() -> {
+            try {
+                Mac mac = Mac.getInstance(ALGORITHM);
+                mac.init(key);
+                return mac;
+            } catch (GeneralSecurityException e) {
+                throw new IllegalStateException("HmacSHA256 is not available", e);
+            }
+        });
+    }
+
+    public boolean verify(byte[] message, String signatureHex) {
+        if (signatureHex == null || signatureHex.length() != SIGNATURE_HEX_LENGTH) {
+            return false;
+        }
+        byte[] expected;
+        try {
+            expected = HexFormat.of().parseHex(signatureHex);
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+        // Constant-time comparison, so response timing does not leak how many bytes matched
+        return MessageDigest.isEqual(macs.get().doFinal(message), expected);
+    }
+
+    public boolean verify(String message, String signatureHex) {
+        return verify(message.getBytes(StandardCharsets.UTF_8), signatureHex);
+    }
+}
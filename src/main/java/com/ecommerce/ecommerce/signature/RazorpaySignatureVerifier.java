@@ -0,0 +1,43 @@
+package com.ecommerce.ecommerce.signature;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+// Razorpay signs webhooks with the webhook secret over the raw body, and checkout callbacks with the
+// key secret over "order_id|payment_id". Both are plain HMAC-SHA256 in hex.
+@Component
+public class RazorpaySignatureVerifier {
+
+    private final HmacSha256Verifier webhookVerifier;
+    private final HmacSha256Verifier paymentVerifier;
+    private final Counter webhookRejected;
+    private final Counter paymentRejected;
+
+    public RazorpaySignatureVerifier(MeterRegistry meterRegistry,
+                                     @Value("${razorpay.webhook.secret}") String webhookSecret,
+                                     @Value("${razorpay.key.secret}") String keySecret) {
+        this.webhookVerifier = new HmacSha256Verifier(webhookSecret);
+        this.paymentVerifier = new HmacSha256Verifier(keySecret);
+        this.webhookRejected = Counter.builder("razorpay.signature.rejected").tag("kind", "webhook").register(meterRegistry);
+        this.paymentRejected = Counter.builder("razorpay.signature.rejected").tag("kind", "payment").register(meterRegistry);
+    }
+
+    // rawBody must be the exact bytes received; re-serialized JSON does not hash the same
+    public boolean verifyWebhook(byte[] rawBody, String signature) {
+        boolean valid = webhookVerifier.verify(rawBody, signature);
+        if (!valid) {
+            webhookRejected.increment();
+        }
+        return valid;
+    }
+
+    public boolean verifyPayment(String razorpayOrderId, String razorpayPaymentId, String signature) {
+        boolean valid = paymentVerifier.verify(razorpayOrderId + "|" + razorpayPaymentId, signature);
+        if (!valid) {
+            paymentRejected.increment();
+        }
+        return valid;
+    }
+}
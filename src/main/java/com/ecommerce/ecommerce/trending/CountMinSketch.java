@@ -0,0 +1,89 @@
+package com.ecommerce.ecommerce.trending;
+
+import java.nio.ByteBuffer;
+import java.nio.LongBuffer;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// Count-Min sketch over string keys. Rows are indexed with double hashing from String.hashCode, which is
+// specified by the JLS, so sketches built on different nodes can be merged cell by cell. Cells are updated
+// atomically, so add and estimate need no lock; bulk operations see a mix of before and after.
+public class CountMinSketch {
+
+    private final int depth;
+    private final int width;
+    private final AtomicLongArray counts; // depth rows of width cells, row-major
+
+    public CountMinSketch(int depth, int width) {
+        this.depth = depth;
+        this.width = width;
+        this.counts = new AtomicLongArray(depth * width);
+    }
+
+    public void add(String key, long count) {
+        int h1 = mix(key.hashCode());
+        int h2 = mix(h1 ^ 0x9E3779B9) | 1;
+        for (int row = 0; row < depth; row++) {
+            counts.getAndAdd(row * width + Math.floorMod(h1 + row * h2, width), count);
+        }
+    }
+
+    public long estimate(String key) {
+        int h1 = mix(key.hashCode());
+        int h2 = mix(h1 ^ 0x9E3779B9) | 1;
+        long min = Long.MAX_VALUE;
+        for (int row = 0; row < depth; row++) {
+            min = Math.min(min, counts.get(row * width + Math.floorMod(h1 + row * h2, width)));
+        }
+        return min;
+    }
+
+    public void merge(CountMinSketch other) {
+        if (other.depth != depth || other.width != width) {
+            throw new IllegalArgumentException("Cannot merge sketches of different dimensions");
+        }
+        for (int i = 0; i < counts.length(); i++) {
+            counts.getAndAdd(i, other.counts.get(i));
+        }
+    }
+
+    // Ages every counter by half, so estimates follow recent frequency rather than all-time totals
+    public void halve() {
+        for (int i = 0; i < counts.length(); i++) {
+            counts.getAndUpdate(i, count -> count >>> 1);
+        }
+    }
+
+    public void clear() {
+        for (int i = 0; i < counts.length(); i++) {
+            counts.set(i, 0);
+        }
+    }
+
+    public byte[] toBytes() {
+        ByteBuffer buffer = ByteBuffer.allocate(counts.length() * Long.BYTES);
+        LongBuffer cells = buffer.asLongBuffer();
+        for (int i = 0; i < counts.length(); i++) {
+            cells.put(counts.get(i));
+        }
+        return buffer.array();
+    }
+
+    public static CountMinSketch fromBytes(int depth, int width, byte[] bytes) {
+        CountMinSketch sketch = new CountMinSketch(depth, width);
+        LongBuffer cells = ByteBuffer.wrap(bytes).asLongBuffer();
+        for (int i = 0; i < sketch.counts.length(); i++) {
+            sketch.counts.set(i, cells.get(i));
+        }
+        return sketch;
+    }
+
+    // Murmur3 finalizer; spreads String.hashCode's weak low bits
+    private static int mix(int h) {
+        h ^= h >>> 16;
+        h *= 0x85EBCA6B;
+        h ^= h >>> 13;
+        h *= 0xC2B2AE35;
+        h ^= h >>> 16;
+        return h;
+    }
+}
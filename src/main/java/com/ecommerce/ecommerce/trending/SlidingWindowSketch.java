@@ -0,0 +1,71 @@
+package com.ecommerce.ecommerce.trending;
+
+import lombok.Getter;
+
+// A ring of Count-Min sketches, one per time bucket. Estimates cover the whole window; when time moves
+// past a bucket boundary the oldest bucket is cleared and reused. add and estimate may run on any thread
+// at any time; advance must be called by one thread at a time. An add racing a boundary may land in
+// either bucket.
+public class SlidingWindowSketch {
+
+    private final CountMinSketch[] buckets;
+    @Getter
+    private final long bucketMillis;
+    private volatile int newest;
+    @Getter
+    private volatile long newestBucketStart;
+
+    public SlidingWindowSketch(int bucketCount, long bucketMillis, int depth, int width, long now) {
+        this.buckets = new CountMinSketch[bucketCount];
+        for (int i = 0; i < bucketCount; i++) {
+            buckets[i] = new CountMinSketch(depth, width);
+        }
+        this.bucketMillis = bucketMillis;
+        this.newestBucketStart = now - now % bucketMillis;
+    }
+
+    // True when now falls past the newest bucket, i.e. advance would expire a bucket
+    public boolean isBehind(long now) {
+        return now - now % bucketMillis > newestBucketStart;
+    }
+
+    // Returns true when at least one bucket expired
+    public boolean advance(long now) {
+        long bucketStart = now - now % bucketMillis;
+        if (bucketStart <= newestBucketStart) {
+            return false;
+        }
+
+        // Clear the reused bucket before publishing it, so adds never see its old counts
+        long steps = Math.min(buckets.length, (bucketStart - newestBucketStart) / bucketMillis);
+        int position = newest;
+        for (long i = 0; i < steps; i++) {
+            position = (position + 1) % buckets.length;
+            buckets[position].clear();
+        }
+        newest = position;
+        newestBucketStart = bucketStart;
+        return true;
+    }
+
+    public void add(String key, long count) {
+        buckets[newest].add(key, count);
+    }
+
+    public long estimate(String key) {
+        long total = 0;
+        for (CountMinSketch bucket : buckets) {
+            total += bucket.estimate(key);
+        }
+        return total;
+    }
+
+    public int getBucketCount() {
+        return buckets.length;
+    }
+
+    // Bucket by age: 0 is the current bucket, bucketCount - 1 the oldest still in the window
+    public CountMinSketch bucketByAge(int age) {
+        return buckets[Math.floorMod(newest - age, buckets.length)];
+    }
+}
@@ -0,0 +1,130 @@
+package com.ecommerce.ecommerce.trending;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.ToLongFunction;
+
+// Heavy-hitter candidates kept in a bounded min-heap ordered by their latest sketch estimate. Each
+// candidate knows its heap slot, so updating a tracked key is one sift in O(log K). Not thread-safe;
+// floor() may be read without the caller's lock.
+public class TopKTracker {
+
+    private static final class Candidate {
+        private final String key;
+        private long estimate;
+        private int slot;
+
+        private Candidate(String key, long estimate) {
+            this.key = key;
+            this.estimate = estimate;
+        }
+    }
+
+    private final int capacity;
+    private final Map<String, Candidate> candidates = new HashMap<>();
+    private final Candidate[] heap;
+    private int size;
+    private volatile long floor; // Smallest tracked estimate once full, else 0
+
+    public TopKTracker(int capacity) {
+        this.capacity = capacity;
+        this.heap = new Candidate[capacity];
+    }
+
+    // An estimate at or below the floor can neither enter the heap nor raise a tracked key, since
+    // estimates only grow between rescores
+    public long floor() {
+        return floor;
+    }
+
+    public void offer(String key, long estimate) {
+        Candidate candidate = candidates.get(key);
+        if (candidate != null) {
+            // Concurrent recorders may offer out of order; only rescore lowers an estimate
+            if (estimate > candidate.estimate) {
+                candidate.estimate = estimate;
+                siftDown(candidate.slot);
+            }
+        } else if (size < capacity) {
+            candidate = new Candidate(key, estimate);
+            candidates.put(key, candidate);
+            place(candidate, size++);
+            siftUp(candidate.slot);
+        } else if (heap[0].estimate < estimate) {
+            candidates.remove(heap[0].key);
+            candidate = new Candidate(key, estimate);
+            candidates.put(key, candidate);
+            place(candidate, 0);
+            siftDown(0);
+        }
+        updateFloor();
+    }
+
+    // Re-scores every candidate, e.g. after old buckets left the window
+    public void rescore(ToLongFunction<String> estimator) {
+        int kept = 0;
+        for (int slot = 0; slot < size; slot++) {
+            Candidate candidate = heap[slot];
+            candidate.estimate = estimator.applyAsLong(candidate.key);
+            if (candidate.estimate > 0) {
+                place(candidate, kept++);
+            } else {
+                candidates.remove(candidate.key);
+            }
+        }
+        Arrays.fill(heap, kept, size, null);
+        size = kept;
+        for (int slot = size / 2 - 1; slot >= 0; slot--) {
+            siftDown(slot);
+        }
+        updateFloor();
+    }
+
+    public List<String> keys() {
+        return new ArrayList<>(candidates.keySet());
+    }
+
+    private void siftUp(int slot) {
+        Candidate candidate = heap[slot];
+        while (slot > 0) {
+            int parent = (slot - 1) >>> 1;
+            if (heap[parent].estimate <= candidate.estimate) {
+                break;
+            }
+            place(heap[parent], slot);
+            slot = parent;
+        }
+        place(candidate, slot);
+    }
+
+    private void siftDown(int slot) {
+        Candidate candidate = heap[slot];
+        while (true) {
+            int child = 2 * slot + 1;
+            if (child >= size) {
+                break;
+            }
+            if (child + 1 < size && heap[child + 1].estimate < heap[child].estimate) {
+                child++;
+            }
+            if (candidate.estimate <= heap[child].estimate) {
+                break;
+            }
+            place(heap[child], slot);
+            slot = child;
+        }
+        place(candidate, slot);
+    }
+
+    private void place(Candidate candidate, int slot) {
+        heap[slot] = candidate;
+        candidate.slot = slot;
+    }
+
+    private void updateFloor() {
+        floor = size == capacity ? heap[0].estimate : 0;
+    }
+}
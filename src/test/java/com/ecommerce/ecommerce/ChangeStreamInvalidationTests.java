@@ -0,0 +1,121 @@
+package com.ecommerce.ecommerce;
+
+import com.ecommerce.ecommerce.model.Product;
+import com.ecommerce.ecommerce.service.CacheInvalidationBus;
+import com.ecommerce.ecommerce.service.ChangeStreamInvalidationService;
+import org.bson.Document;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Needs the local single-node replica set from the README (Option C), since change streams need one
+@SpringBootTest(properties = {
+		"spring.data.mongodb.uri=mongodb://localhost:27017/ecommerce_change_streams?replicaSet=rs0",
+		"scheduler.enabled=false",
+		"cart.migration.enabled=false",
+		"app.node-id=change-stream-test",
+		"cache.invalidation.change-streams.enabled=true",
+		"cache.invalidation.collections=products",
+		"cache.invalidation.max-lag-ms=500",
+		"cache.invalidation.checkpoint-interval-ms=0"
+})
+class ChangeStreamInvalidationTests {
+
+	private static final String CHECKPOINTS = "change_stream_checkpoints";
+
+	@Autowired
+	private MongoTemplate mongoTemplate;
+
+	@Autowired
+	private ChangeStreamInvalidationService changeStreams;
+
+	@Autowired
+	private CacheInvalidationBus invalidationBus;
+
+	private final List<String> invalidated = new CopyOnWriteArrayList<>();
+	private final AtomicInteger flushes = new AtomicInteger();
+
+	@BeforeEach
+	void start() {
+		changeStreams.stop();
+		mongoTemplate.remove(new Query(), Product.class);
+		mongoTemplate.remove(new Query(), CHECKPOINTS);
+		invalidationBus.subscribe("products", new CacheInvalidationBus.Listener() {
+			@Override
+			public void invalidate(String id) {
+				invalidated.add(id);
+			}
+
+			@Override
+			public void invalidateAll() {
+				flushes.incrementAndGet();
+			}
+		});
+		changeStreams.start();
+	}
+
+	@AfterEach
+	void stop() {
+		changeStreams.stop();
+	}
+
+	@Test
+	void resumesFromCheckpointAndFlushesWhileBehind() {
+		Product product = mongoTemplate.insert(new Product(null, "Lamp", null, 10.0, 5, Map.of(), 1L));
+		awaitTrue(() -> invalidated.contains(product.getId()));
+		awaitTrue(() -> checkpoint() != null);
+		assertThat(flushes).hasValue(0);
+
+		// Written while no watcher runs, so it is only seen by resuming from the saved token, and arrives
+		// later than max-lag-ms
+		changeStreams.stop();
+		Object token = checkpoint().get("token");
+		invalidated.clear();
+		mongoTemplate.updateFirst(Query.query(Criteria.where("_id").is(product.getId())),
+				new Update().set("stock", 4), Product.class);
+		pause(1_000);
+
+		changeStreams.start();
+		awaitTrue(() -> invalidated.contains(product.getId()));
+		// One flush on falling behind, one on catching up
+		awaitTrue(() -> flushes.get() >= 2);
+		pause(1_500);
+		assertThat(flushes).hasValue(2);
+		awaitTrue(() -> !token.equals(checkpoint().get("token")));
+	}
+
+	private Document checkpoint() {
+		return mongoTemplate.getCollection(CHECKPOINTS).find(new Document("_id", "change-stream-test:products")).first();
+	}
+
+	private static void awaitTrue(BooleanSupplier condition) {
+		long deadline = System.currentTimeMillis() + 10_000;
+		while (!condition.getAsBoolean()) {
+			assertThat(System.currentTimeMillis()).as("condition met within 10s").isLessThan(deadline);
+			pause(50);
+		}
+	}
+
+	private static void pause(long millis) {
+		try {
+			Thread.sleep(millis);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException(e);
+		}
+	}
+}
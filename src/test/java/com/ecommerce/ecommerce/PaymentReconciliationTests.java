@@ -0,0 +1,179 @@
+package com.ecommerce.ecommerce;
+
+import com.ecommerce.ecommerce.dto.ReconciliationReport;
+import com.ecommerce.ecommerce.model.Order;
+import com.ecommerce.ecommerce.model.OrderStatus;
+import com.ecommerce.ecommerce.model.Payment;
+import com.ecommerce.ecommerce.model.PaymentStatus;
+import com.ecommerce.ecommerce.reconciliation.GatewayPaymentStatus;
+import com.ecommerce.ecommerce.reconciliation.PaymentGateway;
+import com.ecommerce.ecommerce.service.OrderService;
+import com.ecommerce.ecommerce.service.PaymentReconciliationService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.test.context.bean.override.mockito.MockitoSpyBean;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.reset;
+
+// Runs reconciliation against a local Mongo with an in-memory gateway in place of Razorpay
+@SpringBootTest(properties = {
+		"spring.data.mongodb.uri=mongodb://localhost:27017/ecommerce_reconciliation",
+		"scheduler.enabled=false",
+		"cart.migration.enabled=false",
+		"payments.reconciliation.gateway=fake",
+		"payments.reconciliation.rate-per-second=1000"
+})
+class PaymentReconciliationTests {
+
+	@Autowired
+	private MongoTemplate mongoTemplate;
+
+	@Autowired
+	private PaymentReconciliationService reconciliationService;
+
+	@Autowired
+	private FakePaymentGateway gateway;
+
+	@MockitoSpyBean
+	private OrderService orderService;
+
+	@BeforeEach
+	void clear() {
+		mongoTemplate.remove(new Query(), Order.class);
+		mongoTemplate.remove(new Query(), Payment.class);
+		gateway.statuses.clear();
+		reset(orderService);
+	}
+
+	@Test
+	void capturedPaymentSettlesPaymentAndOrder() {
+		Payment payment = pendingPayment("rzp_captured", 1);
+		gateway.statuses.put("rzp_captured", new GatewayPaymentStatus(GatewayPaymentStatus.State.CAPTURED, "pay_1"));
+
+		ReconciliationReport report = reconciliationService.reconcile();
+
+		assertThat(report.getSucceeded()).isEqualTo(1);
+		Payment settled = mongoTemplate.findById(payment.getId(), Payment.class);
+		assertThat(settled.getStatus()).isEqualTo(PaymentStatus.SUCCESS);
+		assertThat(settled.getPaymentId()).isEqualTo("pay_1");
+		assertThat(settled.getOrderSyncPending()).isNull();
+		assertThat(orderStatus(payment)).isEqualTo(OrderStatus.PAID);
+	}
+
+	@Test
+	void abandonedPaymentFailsOnlyAfterFailAfter() {
+		Payment recent = pendingPayment("rzp_recent", 1);
+		Payment abandoned = pendingPayment("rzp_abandoned", 48);
+		gateway.statuses.put("rzp_recent", new GatewayPaymentStatus(GatewayPaymentStatus.State.NO_ATTEMPT, null));
+		gateway.statuses.put("rzp_abandoned", new GatewayPaymentStatus(GatewayPaymentStatus.State.NO_ATTEMPT, null));
+
+		ReconciliationReport report = reconciliationService.reconcile();
+
+		assertThat(report.getFailed()).isEqualTo(1);
+		assertThat(report.getUnchanged()).isEqualTo(1);
+		assertThat(mongoTemplate.findById(recent.getId(), Payment.class).getStatus()).isEqualTo(PaymentStatus.PENDING);
+		assertThat(orderStatus(recent)).isEqualTo(OrderStatus.CREATED);
+		assertThat(mongoTemplate.findById(abandoned.getId(), Payment.class).getStatus()).isEqualTo(PaymentStatus.FAILED);
+		assertThat(orderStatus(abandoned)).isEqualTo(OrderStatus.FAILED);
+	}
+
+	@Test
+	void gatewayErrorLeavesPaymentPending() {
+		Payment payment = pendingPayment("rzp_unknown", 1);
+
+		ReconciliationReport report = reconciliationService.reconcile();
+
+		assertThat(report.getErrors()).isEqualTo(1);
+		assertThat(mongoTemplate.findById(payment.getId(), Payment.class).getStatus()).isEqualTo(PaymentStatus.PENDING);
+	}
+
+	@Test
+	void orderUpdateThatFailsIsRetriedByTheNextRun() {
+		Payment first = pendingPayment("rzp_first", 2);
+		Payment second = pendingPayment("rzp_second", 1);
+		gateway.statuses.put("rzp_first", new GatewayPaymentStatus(GatewayPaymentStatus.State.CAPTURED, "pay_first"));
+		gateway.statuses.put("rzp_second", new GatewayPaymentStatus(GatewayPaymentStatus.State.CAPTURED, "pay_second"));
+		doThrow(new RuntimeException("Simulated crash")).when(orderService).updateOrderStatus(eq(second.getOrderId()), any());
+
+		ReconciliationReport failedRun = reconciliationService.reconcile();
+
+		// The payment is settled but its order is not, and the flag says so
+		assertThat(failedRun.getErrors()).isEqualTo(1);
+		assertThat(orderStatus(first)).isEqualTo(OrderStatus.PAID);
+		assertThat(mongoTemplate.findById(second.getId(), Payment.class).getStatus()).isEqualTo(PaymentStatus.SUCCESS);
+		assertThat(mongoTemplate.findById(second.getId(), Payment.class).getOrderSyncPending()).isTrue();
+		assertThat(orderStatus(second)).isEqualTo(OrderStatus.CREATED);
+
+		reset(orderService);
+		ReconciliationReport nextRun = reconciliationService.reconcile();
+
+		// No payment is PENDING any more, so only the order pass can have moved it
+		assertThat(nextRun.getExamined()).isZero();
+		assertThat(nextRun.getErrors()).isZero();
+		assertThat(orderStatus(second)).isEqualTo(OrderStatus.PAID);
+		assertThat(mongoTemplate.findById(second.getId(), Payment.class).getOrderSyncPending()).isNull();
+	}
+
+	private Payment pendingPayment(String gatewayOrderId, long hoursAgo) {
+		Instant createdAt = Instant.now().minus(hoursAgo, ChronoUnit.HOURS);
+
+		Order order = new Order();
+		order.setUserId("user-1");
+		order.setTotalAmount(100.0);
+		order.setTotalPaise(10_000L);
+		order.setStatus(OrderStatus.CREATED);
+		order.setCreatedAt(createdAt);
+		order = mongoTemplate.insert(order);
+
+		Payment payment = new Payment();
+		payment.setOrderId(order.getId());
+		payment.setAmount(100.0);
+		payment.setStatus(PaymentStatus.PENDING);
+		payment.setRazorpayOrderId(gatewayOrderId);
+		payment.setCreatedAt(createdAt);
+		return mongoTemplate.insert(payment);
+	}
+
+	private OrderStatus orderStatus(Payment payment) {
+		return mongoTemplate.findById(payment.getOrderId(), Order.class).getStatus();
+	}
+
+	// Statuses by gateway order ID; unknown IDs fail like an unreachable gateway
+	static class FakePaymentGateway implements PaymentGateway {
+
+		final Map<String, GatewayPaymentStatus> statuses = new ConcurrentHashMap<>();
+
+		@Override
+		public GatewayPaymentStatus fetchStatus(String gatewayOrderId) {
+			GatewayPaymentStatus status = statuses.get(gatewayOrderId);
+			if (status == null) {
+				throw new IllegalStateException("Gateway unavailable");
+			}
+			return status;
+		}
+	}
+
+	@TestConfiguration
+	static class GatewayConfig {
+
+		@Bean
+		FakePaymentGateway fakePaymentGateway() {
+			return new FakePaymentGateway();
+		}
+	}
+}
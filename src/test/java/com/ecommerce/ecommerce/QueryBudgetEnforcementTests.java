@@ -0,0 +1,45 @@
+package com.ecommerce.ecommerce;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.webmvc.test.autoconfigure.AutoConfigureMockMvc;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// With db.budget.enforce=true an over-budget request must fail the calling test. MockMvc rethrows the
+// filter's exception to the caller; a real client would already have the committed response.
+@SpringBootTest(properties = {
+		"spring.data.mongodb.uri=mongodb://localhost:27017/ecommerce_query_budget",
+		"scheduler.enabled=false",
+		"cart.migration.enabled=false",
+		"db.budget.enforce=true",
+		"db.budget.default-commands=0"
+})
+@AutoConfigureMockMvc
+class QueryBudgetEnforcementTests {
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Test
+	void requestOverBudgetFails() {
+		// No @QueryBudget, so the default of zero commands applies to its one rollup lookup
+		assertThatThrownBy(() -> mockMvc.perform(get("/api/reports/sales/days/2026-01-01")))
+				.satisfies(thrown -> assertThat(NestedExceptionUtils.getMostSpecificCause(thrown))
+						.isInstanceOf(IllegalStateException.class)
+						.hasMessageContaining("GET /api/reports/sales/days/{day} exceeded its query budget")
+						.hasMessageContaining("1 commands, budget 0"));
+	}
+
+	@Test
+	void requestWithinBudgetPasses() throws Exception {
+		// The leaderboard is served from memory and sends no commands
+		mockMvc.perform(get("/api/products/trending")).andExpect(status().isOk());
+	}
+}
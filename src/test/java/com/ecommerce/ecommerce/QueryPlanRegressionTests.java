@@ -0,0 +1,393 @@
+package com.ecommerce.ecommerce;
+
+import com.ecommerce.ecommerce.model.Cart;
+import com.ecommerce.ecommerce.model.CartLine;
+import com.ecommerce.ecommerce.model.Order;
+import com.ecommerce.ecommerce.model.OrderItem;
+import com.ecommerce.ecommerce.model.OrderStatus;
+import com.ecommerce.ecommerce.model.Payment;
+import com.ecommerce.ecommerce.model.PaymentStatus;
+import com.ecommerce.ecommerce.model.Product;
+import com.ecommerce.ecommerce.model.User;
+import com.ecommerce.ecommerce.repository.CartRepository;
+import com.ecommerce.ecommerce.repository.OrderRepository;
+import com.ecommerce.ecommerce.repository.PaymentRepository;
+import com.ecommerce.ecommerce.repository.ProductRepository;
+import com.ecommerce.ecommerce.repository.ReactiveOrderRepository;
+import com.ecommerce.ecommerce.repository.ReactivePaymentRepository;
+import com.ecommerce.ecommerce.repository.ReactiveProductRepository;
+import com.ecommerce.ecommerce.repository.UserRepository;
+import com.ecommerce.ecommerce.service.CartExpiryService;
+import com.ecommerce.ecommerce.service.CartService;
+import com.ecommerce.ecommerce.service.CatalogBrowseService;
+import com.ecommerce.ecommerce.service.OrderArchiveService;
+import com.ecommerce.ecommerce.service.OrderService;
+import com.ecommerce.ecommerce.service.OutboxRelayService;
+import com.ecommerce.ecommerce.service.ProductService;
+import com.ecommerce.ecommerce.service.SalesRollupService;
+import com.mongodb.event.CommandListener;
+import com.mongodb.event.CommandStartedEvent;
+import org.bson.BsonDocument;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.mongodb.autoconfigure.MongoClientSettingsBuilderCustomizer;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.lang.reflect.Method;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Runs every repository query method and service read against a seeded local Mongo, explains the
+// commands they actually send, and fails on collection scans or when far more documents are examined
+// than returned. Adding a repository query method without adding it here fails
+// everyRepositoryQueryMethodIsCovered; dropping an index fails the case that relied on it.
+@SpringBootTest(properties = {
+		"spring.data.mongodb.uri=mongodb://localhost:27017/ecommerce_query_plans",
+		"scheduler.enabled=false",
+		"cart.migration.enabled=false",
+		"reactive.read-path.enabled=true"
+})
+class QueryPlanRegressionTests {
+
+	private static final Set<String> EXPLAINED_COMMANDS = Set.of("find", "aggregate", "count", "distinct", "findAndModify");
+	private static final Set<String> SESSION_FIELDS = Set.of("$db", "lsid", "$clusterTime", "$readPreference", "txnNumber", "readConcern", "writeConcern");
+	private static final double MAX_EXAMINED_PER_RETURNED = 3.0;
+
+	private static final int PRODUCTS = 300;
+	private static final int USERS = 40;
+	private static final int ORDERS = 400;
+
+	// Repository query methods this suite exercises, as Repository.method
+	private static final Set<String> COVERED_REPOSITORY_METHODS = Set.of(
+			"ProductRepository.findByNameContainingIgnoreCase",
+			"OrderRepository.findByUserId",
+			"PaymentRepository.findByOrderId",
+			"PaymentRepository.findByPaymentId",
+			"PaymentRepository.findByRazorpayOrderId",
+			"UserRepository.findByEmail",
+			"UserRepository.findByUsername",
+			"ReactiveOrderRepository.findByUserId",
+			"ReactivePaymentRepository.findByOrderId");
+
+	@Autowired
+	private MongoTemplate mongoTemplate;
+
+	@Autowired
+	private CommandCapture capture;
+
+	@Autowired
+	private ProductRepository productRepository;
+
+	@Autowired
+	private OrderRepository orderRepository;
+
+	@Autowired
+	private PaymentRepository paymentRepository;
+
+	@Autowired
+	private UserRepository userRepository;
+
+	@Autowired
+	private CartRepository cartRepository;
+
+	@Autowired
+	private ReactiveOrderRepository reactiveOrderRepository;
+
+	@Autowired
+	private ReactivePaymentRepository reactivePaymentRepository;
+
+	@Autowired
+	private ProductService productService;
+
+	@Autowired
+	private CatalogBrowseService catalogBrowseService;
+
+	@Autowired
+	private OrderService orderService;
+
+	@Autowired
+	private CartService cartService;
+
+	@Autowired
+	private CartExpiryService cartExpiryService;
+
+	@Autowired
+	private SalesRollupService salesRollupService;
+
+	@Autowired
+	private OrderArchiveService orderArchiveService;
+
+	@Autowired
+	private OutboxRelayService outboxRelayService;
+
+	private final List<Product> products = new ArrayList<>();
+	private final List<Order> orders = new ArrayList<>();
+
+	@BeforeEach
+	void seed() {
+		// Clear documents but keep the collections, so the indexes created at startup stay in place
+		for (Class<?> type : List.of(Product.class, Order.class, Payment.class, User.class, Cart.class)) {
+			mongoTemplate.remove(new Query(), type);
+		}
+		mongoTemplate.remove(new Query(), OrderArchiveService.ARCHIVE_COLLECTION);
+		products.clear();
+		orders.clear();
+
+		for (int i = 0; i < PRODUCTS; i++) {
+			products.add(new Product(null, "Product %03d".formatted(i), "Seeded product", 100.0 + i, 50, new LinkedHashMap<>(), 1L));
+		}
+		products.replaceAll(mongoTemplate::insert);
+
+		List<User> users = new ArrayList<>();
+		List<Cart> carts = new ArrayList<>();
+		for (int i = 0; i < USERS; i++) {
+			users.add(new User(null, "user" + i, "user" + i + "@example.com", "CUSTOMER"));
+			Cart cart = new Cart();
+			cart.setUserId("user-" + i);
+			cart.getLines().put(products.get(i).getId(), new CartLine(products.get(i).getId(), 1));
+			cart.setUpdatedAt(Instant.now());
+			carts.add(cart);
+		}
+		mongoTemplate.insertAll(users);
+		mongoTemplate.insertAll(carts);
+
+		List<Payment> payments = new ArrayList<>();
+		Instant now = Instant.now();
+		for (int i = 0; i < ORDERS; i++) {
+			Product product = products.get(i % PRODUCTS);
+			OrderItem item = new OrderItem(product.getId(), product.getName(), 1, product.getPrice());
+
+			Order order = new Order();
+			order.setUserId("user-" + (i % USERS));
+			order.setTotalAmount(product.getPrice());
+			order.setStatus(i % 3 == 0 ? OrderStatus.PAID : OrderStatus.CREATED);
+			order.setCreatedAt(now.minus(i, ChronoUnit.MINUTES));
+			order.setItems(new ArrayList<>(List.of(item)));
+			orders.add(mongoTemplate.insert(order));
+
+			Payment payment = new Payment();
+			payment.setOrderId(order.getId());
+			payment.setAmount(order.getTotalAmount());
+			payment.setStatus(order.getStatus() == OrderStatus.PAID ? PaymentStatus.SUCCESS : PaymentStatus.PENDING);
+			payment.setRazorpayOrderId("order_rzp_" + i);
+			payment.setPaymentId(order.getStatus() == OrderStatus.PAID ? "pay_" + i : null);
+			payment.setCreatedAt(order.getCreatedAt());
+			payments.add(payment);
+		}
+		mongoTemplate.insertAll(payments);
+	}
+
+	@Test
+	void productQueriesUseIndexes() {
+		String id = products.get(7).getId();
+
+		assertIndexed("ProductRepository.findByNameContainingIgnoreCase",
+				() -> productRepository.findByNameContainingIgnoreCase("product 01"));
+		assertIndexed("ProductService.searchProducts", () -> productService.searchProducts("Product 02"));
+		assertIndexed("ProductService.getCatalogProduct", () -> productService.getCatalogProduct(id));
+		assertIndexed("ProductService.getProductById", () -> productService.getProductById(id));
+		assertIndexed("ProductService.getFrequentlyBoughtTogether", () -> productService.getFrequentlyBoughtTogether(id, 5));
+		assertPageBounded("CatalogBrowseService.browse", 20, () -> catalogBrowseService.browse(
+				150.0, 250.0, true, CatalogBrowseService.BrowseSort.PRICE_ASC, 20, null));
+		assertPageBounded("CatalogBrowseService.browse (newest)", 20, () -> catalogBrowseService.browse(
+				null, null, false, CatalogBrowseService.BrowseSort.NEWEST, 20, null));
+		String token = catalogBrowseService.browse(null, null, false, CatalogBrowseService.BrowseSort.NAME_ASC, 20, null)
+				.getNextPageToken();
+		assertThat(token).isNotNull();
+		// Later pages skip the counts, so every command they send is bounded by the page size
+		assertThat(explain("CatalogBrowseService.browse (next page)", () -> catalogBrowseService.browse(
+				null, null, false, CatalogBrowseService.BrowseSort.NAME_ASC, 20, token))).hasSize(1);
+		assertPageBounded("CatalogBrowseService.browse (next page)", 20, () -> catalogBrowseService.browse(
+				null, null, false, CatalogBrowseService.BrowseSort.NAME_ASC, 20, token));
+
+		// Listing the whole catalog reads every document by design
+		assertScanAllowed("ProductService.getAllProducts", productService::getAllProducts);
+	}
+
+	@Test
+	void orderQueriesUseIndexes() {
+		String orderId = orders.get(3).getId();
+
+		assertIndexed("OrderRepository.findByUserId", () -> orderRepository.findByUserId("user-3"));
+		assertIndexed("ReactiveOrderRepository.findByUserId",
+				() -> reactiveOrderRepository.findByUserId("user-3").collectList().block());
+		assertIndexed("OrderService.getOrderById", () -> orderService.getOrderById(orderId));
+		assertIndexed("OrderService.getUserOrders", () -> orderService.getUserOrders("user-5"));
+		assertIndexed("OrderArchiveService.archive", orderArchiveService::archive);
+		assertIndexed("OutboxRelayService.relay", outboxRelayService::relay);
+	}
+
+	@Test
+	void paymentQueriesUseIndexes() {
+		String orderId = orders.get(9).getId();
+
+		assertIndexed("PaymentRepository.findByOrderId", () -> paymentRepository.findByOrderId(orderId));
+		assertIndexed("ReactivePaymentRepository.findByOrderId",
+				() -> reactivePaymentRepository.findByOrderId(orderId).block());
+		assertIndexed("PaymentRepository.findByPaymentId", () -> paymentRepository.findByPaymentId("pay_9"));
+		assertIndexed("PaymentRepository.findByRazorpayOrderId", () -> paymentRepository.findByRazorpayOrderId("order_rzp_9"));
+	}
+
+	@Test
+	void userCartAndReportQueriesUseIndexes() {
+		assertIndexed("UserRepository.findByEmail", () -> userRepository.findByEmail("user4@example.com"));
+		assertIndexed("UserRepository.findByUsername", () -> userRepository.findByUsername("user4"));
+		assertIndexed("CartService.getCartItemsByUserId", () -> cartService.getCartItemsByUserId("user-4"));
+		assertIndexed("CartService.getCartItems", () -> cartService.getCartItems("user-4"));
+		assertIndexed("CartRepository.findById", () -> cartRepository.findById("user-4"));
+		assertIndexed("CartExpiryService.expire", cartExpiryService::expire);
+		assertIndexed("SalesRollupService.getProductDays", () -> salesRollupService.getProductDays(
+				products.get(0).getId(), LocalDate.now().minusDays(7), LocalDate.now()));
+		assertIndexed("SalesRollupService.getDay", () -> salesRollupService.getDay(LocalDate.now().toString()));
+	}
+
+	@Test
+	void everyRepositoryQueryMethodIsCovered() {
+		Set<String> declared = new TreeSet<>();
+		for (Class<?> repository : List.of(ProductRepository.class, OrderRepository.class, PaymentRepository.class,
+				UserRepository.class, CartRepository.class, ReactiveProductRepository.class,
+				ReactiveOrderRepository.class, ReactivePaymentRepository.class)) {
+			for (Method method : repository.getDeclaredMethods()) {
+				declared.add(repository.getSimpleName() + "." + method.getName());
+			}
+		}
+
+		assertThat(COVERED_REPOSITORY_METHODS)
+				.as("New repository query methods need a case in this suite")
+				.containsAll(declared);
+	}
+
+	private void assertIndexed(String name, Runnable call) {
+		for (Plan plan : explain(name, call)) {
+			assertThat(plan.stages())
+					.as("%s ran a collection scan: %s", name, plan.command())
+					.doesNotContain("COLLSCAN");
+			assertThat(plan.docsExamined())
+					.as("%s examined %d documents to return %d: %s", name, plan.docsExamined(), plan.returned(), plan.command())
+					.isLessThanOrEqualTo((long) Math.ceil(Math.max(1, plan.returned()) * MAX_EXAMINED_PER_RETURNED));
+		}
+	}
+
+	// The page itself must cost about one page of documents however large the filtered set is. Only its
+	// find is checked: the first page's facet counts read every match by design.
+	private void assertPageBounded(String name, int pageSize, Runnable call) {
+		List<Plan> pages = explain(name, call).stream()
+				.filter(plan -> plan.command().startsWith("{\"find\""))
+				.toList();
+		assertThat(pages).as("%s ran no find", name).isNotEmpty();
+		for (Plan plan : pages) {
+			assertThat(plan.stages())
+					.as("%s ran a collection scan: %s", name, plan.command())
+					.doesNotContain("COLLSCAN");
+			assertThat(plan.docsExamined())
+					.as("%s examined %d documents for a page of %d: %s", name, plan.docsExamined(), pageSize, plan.command())
+					.isLessThanOrEqualTo((long) Math.ceil((pageSize + 1) * MAX_EXAMINED_PER_RETURNED));
+		}
+	}
+
+	private void assertScanAllowed(String name, Runnable call) {
+		assertThat(explain(name, call)).as("%s sent no query", name).isNotEmpty();
+	}
+
+	private List<Plan> explain(String name, Runnable call) {
+		capture.clear();
+		call.run();
+		List<BsonDocument> commands = capture.drain();
+
+		List<Plan> plans = new ArrayList<>();
+		for (BsonDocument command : commands) {
+			BsonDocument explained = command.clone();
+			SESSION_FIELDS.forEach(explained::remove);
+			Document result = mongoTemplate.getDb().runCommand(
+					new Document("explain", explained).append("verbosity", "executionStats"));
+
+			Plan plan = new Plan(explained.toJson(), new ArrayList<>(), new long[2]);
+			walk(result, plan);
+			plans.add(plan);
+		}
+		return plans;
+	}
+
+	// Collects stage names anywhere in the explain output and sums executionStats, which covers plain
+	// finds as well as aggregations whose first stage is a $cursor
+	@SuppressWarnings("unchecked")
+	private static void walk(Object node, Plan plan) {
+		if (node instanceof Map<?, ?> map) {
+			for (Map.Entry<?, ?> entry : map.entrySet()) {
+				if ("stage".equals(entry.getKey()) && entry.getValue() instanceof String stage) {
+					plan.stages().add(stage);
+				} else if ("executionStats".equals(entry.getKey()) && entry.getValue() instanceof Map<?, ?> stats) {
+					plan.counters()[0] += ((Number) ((Map<String, Object>) stats).getOrDefault("totalDocsExamined", 0)).longValue();
+					plan.counters()[1] += ((Number) ((Map<String, Object>) stats).getOrDefault("nReturned", 0)).longValue();
+				}
+				walk(entry.getValue(), plan);
+			}
+		} else if (node instanceof List<?> list) {
+			for (Object item : list) {
+				walk(item, plan);
+			}
+		}
+	}
+
+	private record Plan(String command, List<String> stages, long[] counters) {
+		long docsExamined() {
+			return counters[0];
+		}
+
+		long returned() {
+			return counters[1];
+		}
+	}
+
+	// Records the read commands sent by both the blocking and the reactive driver
+	static class CommandCapture implements CommandListener {
+		private final List<BsonDocument> commands = new CopyOnWriteArrayList<>();
+
+		@Override
+		public void commandStarted(CommandStartedEvent event) {
+			if (EXPLAINED_COMMANDS.contains(event.getCommandName())) {
+				commands.add(event.getCommand().clone());
+			}
+		}
+
+		void clear() {
+			commands.clear();
+		}
+
+		List<BsonDocument> drain() {
+			List<BsonDocument> drained = List.copyOf(commands);
+			commands.clear();
+			return drained;
+		}
+	}
+
+	@TestConfiguration
+	static class CaptureConfig {
+
+		@Bean
+		CommandCapture commandCapture() {
+			return new CommandCapture();
+		}
+
+		@Bean
+		MongoClientSettingsBuilderCustomizer commandCaptureCustomizer(CommandCapture capture) {
+			return settings -> settings.addCommandListener(capture);
+		}
+	}
+}
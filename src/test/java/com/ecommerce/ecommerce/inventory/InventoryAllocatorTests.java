@@ -0,0 +1,126 @@
+package com.ecommerce.ecommerce.inventory;
+
+import com.ecommerce.ecommerce.exception.InsufficientStockException;
+import com.ecommerce.ecommerce.model.OrderItem;
+import com.ecommerce.ecommerce.model.Product;
+import com.ecommerce.ecommerce.model.Shipment;
+import org.junit.jupiter.api.Test;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class InventoryAllocatorTests {
+
+	private static final List<String> NEAREST_FIRST = List.of("near", "far");
+
+	@Test
+	void nearestWarehouseWinsATie() {
+		Map<String, Product> products = products(
+				product("p1", 10, Map.of("near", 5, "far", 5)));
+
+		Allocation allocation = InventoryAllocator.allocate(List.of(item("p1", 3)), products, NEAREST_FIRST);
+
+		assertThat(allocation.shipments()).extracting(Shipment::getWarehouseId).containsExactly("near");
+		assertThat(allocation.decrements()).containsExactly(new StockAllocation("p1", "near", 3));
+	}
+
+	@Test
+	void prefersOneShipmentOverTheNearestWarehouse() {
+		Map<String, Product> products = products(
+				product("p1", 10, Map.of("near", 5, "far", 5)),
+				product("p2", 5, Map.of("far", 5)));
+
+		Allocation allocation = InventoryAllocator.allocate(List.of(item("p1", 2), item("p2", 2)), products, NEAREST_FIRST);
+
+		assertThat(allocation.shipments()).extracting(Shipment::getWarehouseId).containsExactly("far");
+		assertThat(allocation.decrements()).containsExactlyInAnyOrder(
+				new StockAllocation("p1", "far", 2),
+				new StockAllocation("p2", "far", 2));
+	}
+
+	@Test
+	void splitsALineNoSingleWarehouseCanFill() {
+		Map<String, Product> products = products(
+				product("p1", 7, Map.of("near", 3, "far", 4)));
+
+		Allocation allocation = InventoryAllocator.allocate(List.of(item("p1", 6)), products, NEAREST_FIRST);
+
+		assertThat(allocation.decrements()).containsExactly(
+				new StockAllocation("p1", "near", 3),
+				new StockAllocation("p1", "far", 3));
+		assertThat(allocation.shipments()).hasSize(2);
+	}
+
+	@Test
+	void splitDrawsOnAnOpenedWarehouseFirst() {
+		Map<String, Product> products = products(
+				product("p1", 4, Map.of("far", 4)),
+				product("p2", 6, Map.of("near", 3, "far", 3)));
+
+		Allocation allocation = InventoryAllocator.allocate(List.of(item("p1", 4), item("p2", 5)), products, NEAREST_FIRST);
+
+		// "far" is opened for p1, so p2 takes all it can there before opening "near"
+		assertThat(allocation.decrements()).containsExactlyInAnyOrder(
+				new StockAllocation("p1", "far", 4),
+				new StockAllocation("p2", "far", 3),
+				new StockAllocation("p2", "near", 2));
+	}
+
+	@Test
+	void unlocatedStockShipsAfterEveryWarehouse() {
+		// 10 in total, 4 of them at "near": 6 are not assigned to any warehouse
+		Map<String, Product> products = products(
+				product("p1", 10, Map.of("near", 4)),
+				product("p2", 5, Map.of()));
+
+		Allocation allocation = InventoryAllocator.allocate(List.of(item("p1", 8), item("p2", 2)), products, NEAREST_FIRST);
+
+		assertThat(allocation.decrements()).containsExactlyInAnyOrder(
+				new StockAllocation("p1", null, 6),
+				new StockAllocation("p1", "near", 2),
+				new StockAllocation("p2", null, 2));
+		assertThat(allocation.shipments()).extracting(Shipment::getWarehouseId).containsExactly("near", null);
+	}
+
+	@Test
+	void inactiveWarehouseStockIsNotTreatedAsUnlocated() {
+		// "closed" is not in the list that may ship, but its 5 units are still located
+		Map<String, Product> products = products(
+				product("p1", 8, Map.of("near", 3, "closed", 5)));
+
+		assertThatThrownBy(() -> InventoryAllocator.allocate(List.of(item("p1", 4)), products, NEAREST_FIRST))
+				.isInstanceOf(InsufficientStockException.class)
+				.hasMessageContaining("Available: 3");
+	}
+
+	@Test
+	void failsWhenWarehousesTogetherFallShort() {
+		Map<String, Product> products = products(
+				product("p1", 5, Map.of("near", 2, "far", 3)));
+
+		assertThatThrownBy(() -> InventoryAllocator.allocate(List.of(item("p1", 6)), products, NEAREST_FIRST))
+				.isInstanceOf(InsufficientStockException.class)
+				.hasMessageContaining("Product p1")
+				.hasMessageContaining("Required: 6");
+	}
+
+	private static Product product(String id, int stock, Map<String, Integer> stockByWarehouse) {
+		return new Product(id, "Product " + id, null, 100.0, stock, new LinkedHashMap<>(stockByWarehouse), 1L);
+	}
+
+	private static Map<String, Product> products(Product... products) {
+		Map<String, Product> byId = new LinkedHashMap<>();
+		for (Product product : products) {
+			byId.put(product.getId(), product);
+		}
+		return byId;
+	}
+
+	private static OrderItem item(String productId, int quantity) {
+		return new OrderItem(productId, "Product " + productId, quantity, 100.0);
+	}
+}